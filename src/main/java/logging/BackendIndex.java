@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import static logging.LoggingSystem.logAlways;
+import static logging.LoggingSystem.logLogging;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+import logging.setup.LoggingSetup;
+import logging.setup.LoggingSetupJUL;
+import logging.setup.LoggingSetupLog4j2;
+
+/**
+ * Record of the logging setup chosen by a previous run, so that a later run with
+ * the same logging providers can go straight to it without working out which
+ * provider to use and looking for configuration files.
+ * <p>
+ * Enabled by the system property {@value #PROPERTY}:
+ * <ul>
+ * <li>a file name -- read the index from that file; if there is no matching entry,
+ *     do the full setup and write the file.</li>
+ * <li>{@code classpath} -- read the index from the classpath resource {@value #RESOURCE}
+ *     (e.g. a file generated as above and included in the application jar).</li>
+ * </ul>
+ * An entry applies when the same slf4j providers are found: the names of the jars (or
+ * directories) containing slf4j provider registrations, without their locations, so an
+ * index built at packaging time matches the deployed application. The index also records
+ * the names on the class path; when they are unchanged, the providers are taken from the
+ * index and the class path is not searched for them. For a configuration
+ * found as a file, the current directory must also be the same. The index does not notice
+ * a configuration file added since it was written; delete the index file to refresh it.
+ */
+final class BackendIndex {
+    static final String PROPERTY  = "logging.backend.index";
+    static final String RESOURCE  = "META-INF/logging-backend.idx";
+
+    private static final String CLASSPATH_VALUE = "classpath";
+    private static final String NO_SETUP        = "none";
+
+    private static final String KEY_PROVIDERS = "providers";
+    private static final String KEY_CLASSPATH = "classpath";
+    private static final String KEY_DIR       = "dir";
+    private static final String KEY_SETUP     = "setup";
+    private static final String KEY_CONFIG    = "config";
+
+    private final String setupClass;
+    private final String configSource;
+
+    private BackendIndex(String setupClass, String configSource) {
+        this.setupClass = setupClass;
+        this.configSource = configSource;
+    }
+
+    static boolean isEnabled() {
+        return System.getProperty(PROPERTY) != null;
+    }
+
+    /** Read the index; return null if there isn't one or it is for different providers. */
+    static BackendIndex read() {
+        String location = System.getProperty(PROPERTY);
+        if ( location == null )
+            return null;
+        Properties props = new Properties();
+        try ( InputStream in = open(location) ) {
+            if ( in == null )
+                return null;
+            props.load(in);
+        } catch (IOException ex) {
+            logAlways("Failed to read logging index %s: %s", location, ex.getMessage());
+            return null;
+        }
+        if ( ! sameClassPath(props) && ! providers().equals(props.getProperty(KEY_PROVIDERS)) ) {
+            logLogging("Index %s is for different slf4j providers", location);
+            return null;
+        }
+        String setupClass = props.getProperty(KEY_SETUP);
+        String config = props.getProperty(KEY_CONFIG);
+        if ( setupClass == null || ( config == null && !setupClass.equals(NO_SETUP) ) )
+            return null;
+        String dir = props.getProperty(KEY_DIR);
+        if ( dir != null && ! dir.equals(currentDir()) ) {
+            logLogging("Index %s is for a different directory", location);
+            return null;
+        }
+        return new BackendIndex(setupClass, config);
+    }
+
+    private static InputStream open(String location) throws IOException {
+        if ( location.equals(CLASSPATH_VALUE) ) {
+            URL url = BackendIndex.class.getClassLoader().getResource(RESOURCE);
+            return url == null ? null : url.openStream();
+        }
+        Path path = Paths.get(location);
+        if ( ! Files.exists(path) )
+            return null;
+        return Files.newInputStream(path);
+    }
+
+    /**
+     * Write the index for a setup (null for "no setup"), when the index is a file.
+     * Called after the full setup process.
+     */
+    static void record(LoggingSetup loggingSetup) {
+        String location = System.getProperty(PROPERTY);
+        if ( location == null || location.equals(CLASSPATH_VALUE) )
+            return;
+        Properties props = new Properties();
+        props.setProperty(KEY_PROVIDERS, providers());
+        props.setProperty(KEY_CLASSPATH, classPath());
+        if ( loggingSetup == null ) {
+            props.setProperty(KEY_SETUP, NO_SETUP);
+        } else {
+            String config = loggingSetup.getConfigSource();
+            if ( config == null )
+                // Configured outside this setup process.
+                return;
+            props.setProperty(KEY_SETUP, loggingSetup.getClass().getName());
+            props.setProperty(KEY_CONFIG, config);
+            // A file configuration is found relative to the current directory.
+            if ( config.startsWith("file:") )
+                props.setProperty(KEY_DIR, currentDir());
+        }
+        Path path = Paths.get(location);
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            Path tmp = Files.createTempFile(dir, ".logging-index", ".tmp");
+            try ( Writer out = Files.newBufferedWriter(tmp, StandardCharsets.ISO_8859_1) ) {
+                props.store(out, "Logging setup selection");
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logLogging("Wrote logging index %s", location);
+        } catch (IOException ex) {
+            logAlways("Failed to write logging index %s: %s", location, ex.getMessage());
+        }
+    }
+
+    // slf4j 2 service providers and slf4j 1.7 bindings.
+    private static final String[] PROVIDER_RESOURCES = {
+        "META-INF/services/org.slf4j.spi.SLF4JServiceProvider",
+        "org/slf4j/impl/StaticLoggerBinder.class"
+    };
+
+    // Only search for the providers once.
+    private static String providers = null;
+
+    /**
+     * The sorted, comma separated names of the jars or directories with slf4j provider
+     * registrations.
+     */
+    static synchronized String providers() {
+        if ( providers == null )
+            providers = findProviders();
+        return providers;
+    }
+
+    private static String findProviders() {
+        Set<String> names = new TreeSet<>();
+        ClassLoader cl = BackendIndex.class.getClassLoader();
+        for ( String resource : PROVIDER_RESOURCES ) {
+            try {
+                Enumeration<URL> urls = cl.getResources(resource);
+                while ( urls.hasMoreElements() )
+                    names.add(sourceName(urls.nextElement().toString(), resource));
+            } catch (IOException ex) {
+                logLogging("Failed to look for %s: %s", resource, ex.getMessage());
+            }
+        }
+        return String.join(",", names);
+    }
+
+    /**
+     * Whether the index was written with the same class path, by names without locations,
+     * in which case the providers found then are still the providers.
+     */
+    private static boolean sameClassPath(Properties props) {
+        String classPath = classPath();
+        return ! classPath.isEmpty() && classPath.equals(props.getProperty(KEY_CLASSPATH));
+    }
+
+    /** The names of the class path entries, in order. */
+    private static String classPath() {
+        String cp = System.getProperty("java.class.path", "");
+        if ( cp.isEmpty() )
+            return "";
+        StringJoiner names = new StringJoiner(",");
+        for ( String entry : cp.split(File.pathSeparator) ) {
+            if ( entry.isEmpty() )
+                continue;
+            Path name = Paths.get(entry).getFileName();
+            names.add(name == null ? entry : name.toString());
+        }
+        return names.toString();
+    }
+
+    /** The last path element of the jar or directory that the resource URL is in. */
+    private static String sourceName(String url, String resource) {
+        String x = url;
+        if ( x.endsWith(resource) )
+            x = x.substring(0, x.length()-resource.length());
+        if ( x.endsWith("!/") )
+            x = x.substring(0, x.length()-2);
+        if ( x.endsWith("/") )
+            x = x.substring(0, x.length()-1);
+        return x.substring(x.lastIndexOf('/')+1);
+    }
+
+    private static String currentDir() {
+        return System.getProperty("user.dir", "");
+    }
+
+    boolean isNoSetup() {
+        return setupClass.equals(NO_SETUP);
+    }
+
+    String getConfigSource() {
+        return configSource;
+    }
+
+    /** Create the recorded setup, or return null if not recognized. */
+    LoggingSetup createLoggingSetup() {
+        if ( setupClass.equals(LoggingSetupLog4j2.class.getName()) )
+            return new LoggingSetupLog4j2();
+        if ( setupClass.equals(LoggingSetupJUL.class.getName()) )
+            return new LoggingSetupJUL();
+        return null;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Limits on the rate of log output, by logger name prefix.
+ * <p>
+ * The specification is a list of {@code prefix=rate} separated by commas or semicolons,
+ * for example {@code org.apache.jena.riot=2MB/s, org.example=100KB/s}. The rate is a size
+ * in bytes, with an optional suffix K, KB, M, MB, G or GB, optionally followed by "/s".
+ * Entries that can't be parsed are reported and ignored. A logger uses the longest
+ * matching prefix ("a.b" matches loggers "a.b" and "a.b.c"); loggers with no matching
+ * prefix are not limited.
+ * <p>
+ * The size of an event is given by the caller, usually the length of its formatted message
+ * in UTF-8; the layout added by the handler is not counted. Sizes are counted against the rate over a sliding one
+ * second window. Events that would go over it are refused. When a window in which events
+ * were refused has passed, the sink is given one summary line for the prefix. Summaries
+ * are given when the next event for that prefix arrives, by a background thread every
+ * second, and on {@link #close()}.
+ *
+ * @see logging.jul.QuotaFilter
+ */
+public final class ByteQuotas {
+    /** System property with the quotas to install at logging setup. */
+    public static final String PROPERTY = "logging.quotas";
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final List<Quota> quotas;
+    private final BiConsumer<String, String> summarySink;
+    // Logger name to quota; NONE for no quota.
+    private final Map<String, Quota> byLogger = new ConcurrentHashMap<>();
+    private static final Quota NONE = new Quota("", Long.MAX_VALUE);
+
+    // Shared by all quotas to give summaries when loggers have gone quiet.
+    private static ScheduledExecutorService timer = null;
+    private final ScheduledFuture<?> flushTask;
+
+    /**
+     * Quotas from a specification; the summary sink is called with the quota prefix and
+     * the summary text.
+     */
+    public ByteQuotas(String spec, BiConsumer<String, String> summarySink) {
+        this.quotas = parse(spec);
+        this.summarySink = summarySink;
+        this.flushTask = quotas.isEmpty() ? null
+            : timer().scheduleAtFixedRate(this::timedFlush, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private static synchronized ScheduledExecutorService timer() {
+        if ( timer == null ) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "logging-quotas");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return timer;
+    }
+
+    /** Parse a quota specification, skipping entries that are not valid. */
+    private static List<Quota> parse(String spec) {
+        List<Quota> x = new ArrayList<>();
+        if ( spec == null )
+            return x;
+        for ( String entry : spec.split("[,;]") ) {
+            entry = entry.trim();
+            if ( entry.isEmpty() )
+                continue;
+            int idx = entry.indexOf('=');
+            long rate = ( idx < 0 ) ? -1 : parseRate(entry.substring(idx+1));
+            if ( rate <= 0 ) {
+                LoggingSystem.logAlways("Quota: expected prefix=rate, ignored: '%s'", entry);
+                continue;
+            }
+            x.add(new Quota(entry.substring(0, idx).trim(), rate));
+        }
+        return x;
+    }
+
+    /** Bytes per second, or -1 if not valid. */
+    private static long parseRate(String x) {
+        String s = x.trim();
+        if ( s.toUpperCase(Locale.ROOT).endsWith("/S") )
+            s = s.substring(0, s.length()-2);
+        try {
+            return LoggingSystem.parseSize(s);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /** The length of a string in UTF-8. */
+    public static long utf8Length(String s) {
+        return LogDispatch.utf8Length(s);
+    }
+
+    /** Whether an event with this formatted message is within the logger's quota. */
+    public boolean allow(String loggerName, String message) {
+        return allow(loggerName, message == null ? 0 : LogDispatch.utf8Length(message));
+    }
+
+    /**
+     * Whether an event of {@code bytes} for the logger is within its quota.
+     * The bytes of events that are allowed are counted.
+     */
+    public boolean allow(String loggerName, long bytes) {
+        Quota quota = quota(loggerName == null ? "" : loggerName);
+        if ( quota == NONE )
+            return true;
+        String summary;
+        boolean allowed;
+        synchronized(quota) {
+            summary = quota.roll(System.nanoTime());
+            allowed = quota.allow(bytes);
+        }
+        if ( summary != null )
+            summarySink.accept(quota.prefix, summary);
+        return allowed;
+    }
+
+    /** Stop the background summaries, and give the summaries of all events refused so far. */
+    public void close() {
+        if ( flushTask != null )
+            flushTask.cancel(false);
+        for ( Quota quota : quotas ) {
+            String summary;
+            synchronized(quota) {
+                summary = quota.takeSummary();
+            }
+            if ( summary != null )
+                summarySink.accept(quota.prefix, summary);
+        }
+    }
+
+    // An exception would stop the scheduled task.
+    private void timedFlush() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            LoggingSystem.logAlways("Quota summary failed: %s", ex.getMessage());
+        }
+    }
+
+    /** Give the summaries for windows that have passed. */
+    public void flush() {
+        long now = System.nanoTime();
+        for ( Quota quota : quotas ) {
+            String summary;
+            synchronized(quota) {
+                summary = quota.roll(now);
+            }
+            if ( summary != null )
+                summarySink.accept(quota.prefix, summary);
+        }
+    }
+
+    private Quota quota(String loggerName) {
+        Quota q = byLogger.get(loggerName);
+        if ( q == null ) {
+            q = NONE;
+            for ( Quota x : quotas ) {
+                if ( x.matches(loggerName) && ( q == NONE || x.prefix.length() > q.prefix.length() ) )
+                    q = x;
+            }
+            byLogger.put(loggerName, q);
+        }
+        return q;
+    }
+
+    private static final class Quota {
+        final String prefix;
+        final long budget;
+        // Guarded by this.
+        long windowStart = System.nanoTime();
+        long current = 0;
+        long previous = 0;
+        long suppressedEvents = 0;
+        long suppressedBytes = 0;
+
+        Quota(String prefix, long budget) {
+            this.prefix = prefix;
+            this.budget = budget;
+        }
+
+        boolean matches(String loggerName) {
+            return loggerName.startsWith(prefix)
+                && ( loggerName.length() == prefix.length() || loggerName.charAt(prefix.length()) == '.' );
+        }
+
+        /** Move the window forward; return the summary for the window that ended, if any. */
+        String roll(long now) {
+            long elapsed = now - windowStart;
+            if ( elapsed < WINDOW_NANOS )
+                return null;
+            String summary = takeSummary();
+            previous = ( elapsed < 2*WINDOW_NANOS ) ? current : 0;
+            current = 0;
+            windowStart += (elapsed / WINDOW_NANOS) * WINDOW_NANOS;
+            return summary;
+        }
+
+        /** The summary of the events refused since the last summary, if any. */
+        String takeSummary() {
+            if ( suppressedEvents == 0 )
+                return null;
+            String summary = String.format("logger %s suppressed %d events / %d bytes", prefix, suppressedEvents, suppressedBytes);
+            suppressedEvents = 0;
+            suppressedBytes = 0;
+            return summary;
+        }
+
+        boolean allow(long bytes) {
+            // Sliding window: the part of the previous window still covered, and this window.
+            double overlap = 1.0 - (double)(System.nanoTime() - windowStart) / WINDOW_NANOS;
+            double used = previous * Math.max(0, overlap) + current;
+            if ( used + bytes > budget ) {
+                suppressedEvents++;
+                suppressedBytes += bytes;
+                return false;
+            }
+            current += bytes;
+            return true;
+        }
+    }
+}
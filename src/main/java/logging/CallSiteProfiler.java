@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Find the log statements producing the most output.
+ * <p>
+ * A fraction of the events logged through {@link LogFmt} and {@link Log} is sampled;
+ * for each sample the calling statement is found with {@link StackWalker} and its count
+ * and message size, in bytes of UTF-8, are added up. Call sites can be ranked by count or
+ * by bytes. The size is of the message only, not the layout added by the handler.
+ * At most {@value #MAX_SITES} call sites are kept; samples from further sites are
+ * added to "(other)".
+ * <p>
+ * Enable with the system property {@code logging.callsites} set to the sampling fraction
+ * (e.g. 0.01), or with {@link LogCtl#setCallSiteSampling(double)}. An invalid value is
+ * reported and leaves the profiler off. When enabled by the
+ * system property, the top call sites are printed to stderr on shutdown; the system
+ * property {@code logging.callsites.top} sets how many (default 20).
+ */
+public final class CallSiteProfiler {
+    private CallSiteProfiler() {}
+
+    private static final int MAX_SITES = 1024;
+    private static final String OTHER = "(other)";
+
+    private static volatile double rate = 0;
+    private static final ConcurrentHashMap<String, Site> sites = new ConcurrentHashMap<>();
+    private static final StackWalker walker = StackWalker.getInstance();
+
+    static {
+        String x = System.getProperty("logging.callsites");
+        if ( x != null && parseSampling(x) ) {
+            int top = Integer.getInteger("logging.callsites.top", 20);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(report(top)), "logging-callsites"));
+        }
+    }
+
+    private static boolean parseSampling(String x) {
+        try {
+            setSampling(Double.parseDouble(x.trim()));
+            return true;
+        } catch (NumberFormatException ex) {
+            LoggingSystem.logAlways("Bad value for logging.callsites: '%s' (call site profiling off)", x);
+            return false;
+        }
+    }
+
+    /** Counts for one call site. */
+    public static final class Site {
+        private final String location;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        Site(String location) {
+            this.location = location;
+        }
+
+        /** "class.method:line" */
+        public String getLocation()  { return location; }
+        /** Events sampled. */
+        public long getCount()       { return count.sum(); }
+        /** Bytes (UTF-8) of the messages sampled. */
+        public long getBytes()       { return bytes.sum(); }
+    }
+
+    /** Set the fraction of events sampled, from 0 (off) to 1 (all). */
+    public static void setSampling(double fraction) {
+        rate = Math.max(0, Math.min(1, fraction));
+    }
+
+    public static double getSampling() {
+        return rate;
+    }
+
+    public static boolean isEnabled() {
+        return rate > 0;
+    }
+
+    /** Called for an event being logged; samples it. */
+    static void sample(String message) {
+        double r = rate;
+        if ( r < 1 && ThreadLocalRandom.current().nextDouble() >= r )
+            return;
+        String location = walker.walk(frames -> frames
+                                      .filter(f -> !isLoggingClass(f.getClassName()))
+                                      .findFirst()
+                                      .map(f -> f.getClassName()+"."+f.getMethodName()+":"+f.getLineNumber())
+                                      .orElse(OTHER));
+        Site site = sites.get(location);
+        if ( site == null ) {
+            if ( sites.size() >= MAX_SITES )
+                location = OTHER;
+            site = sites.computeIfAbsent(location, Site::new);
+        }
+        site.count.increment();
+        site.bytes.add(message == null ? 0 : LogDispatch.utf8Length(message));
+    }
+
+    private static boolean isLoggingClass(String className) {
+        return className.equals(CallSiteProfiler.class.getName())
+            || className.equals(LogDispatch.class.getName())
+            || className.equals(LogFmt.class.getName())
+            || className.equals(Log.class.getName());
+    }
+
+    /** The call sites with the highest counts. */
+    public static List<Site> topByCount(int n) {
+        return top(n, Site::getCount);
+    }
+
+    /** The call sites with the most bytes logged. */
+    public static List<Site> topByBytes(int n) {
+        return top(n, Site::getBytes);
+    }
+
+    // Sort on a snapshot of the values: the counters change while sorting, which
+    // would break the comparator's contract.
+    private static List<Site> top(int n, ToLongFunction<Site> key) {
+        List<Ranked> ranked = new ArrayList<>(sites.size());
+        for ( Site site : sites.values() )
+            ranked.add(new Ranked(site, key.applyAsLong(site)));
+        ranked.sort(Comparator.comparingLong((Ranked r) -> r.value).reversed());
+        int size = Math.min(n, ranked.size());
+        List<Site> x = new ArrayList<>(size);
+        for ( int i = 0 ; i < size ; i++ )
+            x.add(ranked.get(i).site);
+        return x;
+    }
+
+    /** A site and the value it is sorted on, read once. */
+    private static final class Ranked {
+        final Site site;
+        final long value;
+
+        Ranked(Site site, long value) {
+            this.site = site;
+            this.value = value;
+        }
+    }
+
+    /** The top {@code n} call sites by count and by bytes, as text. */
+    public static String report(int n) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Log call sites (sampling %s)%n", rate));
+        sb.append("By count:\n");
+        for ( Site s : topByCount(n) )
+            sb.append(String.format("  %10d %12d  %s%n", s.getCount(), s.getBytes(), s.getLocation()));
+        sb.append("By bytes:\n");
+        for ( Site s : topByBytes(n) )
+            sb.append(String.format("  %10d %12d  %s%n", s.getCount(), s.getBytes(), s.getLocation()));
+        return sb.toString();
+    }
+
+    public static void reset() {
+        sites.clear();
+    }
+}
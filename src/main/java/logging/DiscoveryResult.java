@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import static logging.LoggingSystem.logAlways;
+
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+
+import org.slf4j.spi.SLF4JServiceProvider;
+
+/**
+ * The logging providers found on the classpath.
+ * <p>
+ * Discovery happens once; providers are identified by their class
+ * ({@link ServiceLoader.Provider#type()}) and are not instantiated.
+ *
+ * @see LoggingSystem#discovery()
+ */
+public final class DiscoveryResult {
+    private final List<String> providers;
+    private final boolean hasSimple;
+    private final boolean hasFmtSimple;
+    private final boolean hasLog4j1;
+    private final boolean hasLog4j2;
+    private final boolean hasJUL;
+    private final long durationNanos;
+
+    private DiscoveryResult(List<String> providers, boolean hasSimple, boolean hasFmtSimple,
+                            boolean hasLog4j1, boolean hasLog4j2, boolean hasJUL, long durationNanos) {
+        this.providers = providers;
+        this.hasSimple = hasSimple;
+        this.hasFmtSimple = hasFmtSimple;
+        this.hasLog4j1 = hasLog4j1;
+        this.hasLog4j2 = hasLog4j2;
+        this.hasJUL = hasJUL;
+        this.durationNanos = durationNanos;
+    }
+
+    // slf4j 1.8.x uses ServiceLoader
+    // Support for slf4j v1.8.x, v2.0.x.
+    // slf4j uses java.util.ServiceLoader for "org.slf4j.spi.SLF4JServiceProvider"
+
+    /** Look for providers, once, over the class loader for the logging code. */
+    /* package */ static DiscoveryResult discover() {
+        long start = System.nanoTime();
+        ServiceLoader<SLF4JServiceProvider> sl =
+            ServiceLoader.load(SLF4JServiceProvider.class, LoggingSystem.class.getClassLoader());
+        List<String> providers = sl.stream().map(p->p.type().getName()).collect(Collectors.toUnmodifiableList());
+
+        boolean hasSimple = providers.contains("org.slf4j.impl.SimpleLogger");
+        boolean hasFmtSimple = providers.contains("logging.impl.FmtSimpleFactory");
+        boolean hasLog4j2 = checkForBoth(providers, "org.apache.logging.log4j.Logger", "org.apache.logging.slf4j.Log4jLoggerFactory",
+                                         "Classpath has the log4j-slf4j-impl bridge but not log4j2",
+                                         "Classpath has log4j2 but not the log4j-slf4j-impl bridge");
+        boolean hasLog4j1 = checkForBoth(providers, "org.apache.log4j.Logger", "org.slf4j.impl.Log4jLoggerAdapter",
+                                         "Classpath has the slf4j-log4j binding but not log4j1",
+                                         "Classpath has log4j1 but not the slf4j-log4j binding");
+        boolean hasJUL = checkForClass("org.slf4j.impl.JDK14LoggerAdapter");
+        long duration = System.nanoTime() - start;
+        return new DiscoveryResult(providers, hasSimple, hasFmtSimple, hasLog4j1, hasLog4j2, hasJUL, duration);
+    }
+
+    private static boolean checkForBoth(List<String> providers, String logging, String binding,
+                                        String msgNoLogging, String msgNoBinding) {
+        boolean bLogging = providers.contains(logging);
+        boolean bBinding = providers.contains(binding);
+        if ( bLogging && bBinding )
+            return true;
+        if ( !bLogging && !bBinding )
+            return false;
+        if ( !bLogging ) {
+            logAlways(msgNoLogging);
+            return false;
+        }
+        logAlways(msgNoBinding);
+        return false;
+    }
+
+    /** Check for a class on the classpath */
+    private static boolean checkForClass(String className) {
+        try {
+            Class.forName(className);
+            return true;
+        }
+        catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+
+    /** The class names of the SLF4J service providers found. */
+    public List<String> getProviders() {
+        return providers;
+    }
+
+    public boolean hasSimple() {
+        return hasSimple;
+    }
+
+    public boolean hasFmtSimple() {
+        return hasFmtSimple;
+    }
+
+    public boolean hasLog4j1() {
+        return hasLog4j1;
+    }
+
+    public boolean hasLog4j2() {
+        return hasLog4j2;
+    }
+
+    public boolean hasJUL() {
+        return hasJUL;
+    }
+
+    /** Time taken by discovery, in nanoseconds. */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Discovery[providers=%s simple=%s fmtSimple=%s log4j1=%s log4j2=%s jul=%s time=%.2fms]",
+                             providers, hasSimple, hasFmtSimple, hasLog4j1, hasLog4j2, hasJUL, durationNanos/1e6);
+    }
+}
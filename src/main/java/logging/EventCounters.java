@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of log events by logger and level.
+ * <p>
+ * "Emitted" events are those that passed the level check and reached the backend; they
+ * are counted by a filter installed at setup: {@code logging.jul.CountingFilter} on
+ * {@code ConsoleHandlerStream} for JUL, and a filter on the root logger configuration for
+ * Log4j2. "Disabled" counts calls through {@link LogFmt} and {@link Log} where the level
+ * was not enabled.
+ * <p>
+ * Off by default. Enable with the system property {@code logging.counters=true} or
+ * {@link LogCtl#setCounting(boolean)}.
+ */
+public final class EventCounters {
+    private EventCounters() {}
+
+    private static volatile boolean enabled = Boolean.getBoolean("logging.counters");
+
+    private static final LogLevel[] levels = LogLevel.values();
+    private static final int N = levels.length;
+    private static final ConcurrentHashMap<String, Counts> counters = new ConcurrentHashMap<>();
+
+    private static final class Counts {
+        final LongAdder[] emitted = adders();
+        final LongAdder[] disabled = adders();
+
+        private static LongAdder[] adders() {
+            LongAdder[] x = new LongAdder[N];
+            for ( int i = 0 ; i < N ; i++ )
+                x[i] = new LongAdder();
+            return x;
+        }
+    }
+
+    /** Counts for one logger and level. */
+    public static final class Count {
+        private final String logger;
+        private final LogLevel level;
+        private final long emitted;
+        private final long disabled;
+
+        Count(String logger, LogLevel level, long emitted, long disabled) {
+            this.logger = logger;
+            this.level = level;
+            this.emitted = emitted;
+            this.disabled = disabled;
+        }
+
+        public String getLogger()   { return logger; }
+        public LogLevel getLevel()  { return level; }
+        public long getEmitted()    { return emitted; }
+        public long getDisabled()   { return disabled; }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s emitted=%d disabled=%d", logger, level, emitted, disabled);
+        }
+    }
+
+    /** Receiver of counts from {@link EventCounters#visit}. */
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(String logger, LogLevel level, long emitted, long disabled);
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Count an event that reached the backend. */
+    public static void emitted(String logger, LogLevel level) {
+        if ( enabled && level != null )
+            counts(logger).emitted[level.ordinal()].increment();
+    }
+
+    /** Count a call for a level that was not enabled. */
+    public static void disabled(String logger, LogLevel level) {
+        if ( enabled && level != null )
+            counts(logger).disabled[level.ordinal()].increment();
+    }
+
+    private static Counts counts(String logger) {
+        if ( logger == null )
+            logger = "";
+        Counts c = counters.get(logger);
+        if ( c == null )
+            c = counters.computeIfAbsent(logger, k -> new Counts());
+        return c;
+    }
+
+    /**
+     * Pass the current counts, for each logger and level with any, to the visitor.
+     * This does not allocate for the counts themselves.
+     */
+    public static void visit(Visitor visitor) {
+        counters.forEach((logger, c) -> {
+            for ( int i = 0 ; i < N ; i++ ) {
+                long emitted = c.emitted[i].sum();
+                long disabled = c.disabled[i].sum();
+                if ( emitted != 0 || disabled != 0 )
+                    visitor.visit(logger, levels[i], emitted, disabled);
+            }
+        });
+    }
+
+    /** The current counts, in no particular order. */
+    public static List<Count> snapshot() {
+        List<Count> x = new ArrayList<>(counters.size());
+        visit((logger, level, emitted, disabled) -> x.add(new Count(logger, level, emitted, disabled)));
+        return Collections.unmodifiableList(x);
+    }
+
+    public static void reset() {
+        counters.clear();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ * <p>
+ * Buckets are log-linear: each power of two is divided into {@value #SUB_BUCKETS} equal
+ * buckets, so a recorded value is known to within 12.5%. Percentiles report the upper
+ * bound of the bucket. Recording is a few array updates with no allocation.
+ * {@link #reset()} does not stop concurrent recording; a value recorded during a reset
+ * may be partly kept.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Values 0-7 have their own buckets; then 8 buckets per power of two up to 2^63.
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Record a duration in nanoseconds. Negative values are recorded as zero. */
+    public void record(long nanos) {
+        if ( nanos < 0 )
+            nanos = 0;
+        buckets.incrementAndGet(index(nanos));
+        count.increment();
+        if ( nanos > max.get() )
+            max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /** The largest value recorded. */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * The value at or below which the given percentage (0-100) of values fall,
+     * as the upper bound of its bucket; 0 if there are no values.
+     */
+    public long percentile(double percent) {
+        long[] x = new long[BUCKETS];
+        long total = 0;
+        for ( int i = 0 ; i < BUCKETS ; i++ ) {
+            x[i] = buckets.get(i);
+            total += x[i];
+        }
+        if ( total == 0 )
+            return 0;
+        long rank = (long)Math.ceil(percent/100.0 * total);
+        if ( rank < 1 )
+            rank = 1;
+        long seen = 0;
+        for ( int i = 0 ; i < BUCKETS ; i++ ) {
+            seen += x[i];
+            if ( seen >= rank )
+                return Math.min(upperBound(i), max());
+        }
+        return max();
+    }
+
+    /** Add the values recorded in another histogram to this one. */
+    public void add(LatencyHistogram other) {
+        for ( int i = 0 ; i < BUCKETS ; i++ ) {
+            long x = other.buckets.get(i);
+            if ( x != 0 )
+                buckets.addAndGet(i, x);
+        }
+        count.add(other.count());
+        max.accumulateAndGet(other.max(), Math::max);
+    }
+
+    public void reset() {
+        for ( int i = 0 ; i < BUCKETS ; i++ )
+            buckets.set(i, 0);
+        count.reset();
+        max.set(0);
+    }
+
+    /** One line: count, p50, p99, p999 and max, in microseconds. */
+    public String summary() {
+        if ( count() == 0 )
+            return String.format("%-24s count=0", name);
+        return String.format("%-24s count=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                             name, count(), percentile(50)/1e3, percentile(99)/1e3,
+                             percentile(99.9)/1e3, max()/1e3);
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+
+    /* package */ static int index(long value) {
+        if ( value < SUB_BUCKETS )
+            return (int)value;
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /* package */ static long upperBound(int index) {
+        if ( index < SUB_BUCKETS )
+            return index;
+        int exp = index / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long lower = (long)(SUB_BUCKETS + sub) << (exp - SUB_BITS);
+        long width = 1L << (exp - SUB_BITS);
+        long upper = lower + width - 1;
+        // Overflow in the top buckets.
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
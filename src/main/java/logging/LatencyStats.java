@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent on the calling thread by logging calls: {@link LogFmt} and {@link Log}
+ * calls, by level, and {@code publish} of the console handlers, by handler class.
+ * <p>
+ * Off by default. Enable with the system property {@code logging.latency=true} or
+ * {@link LogCtl#setLatencyTiming(boolean)}. The system property
+ * {@code logging.latency.report} sets an interval, in milliseconds, at which the
+ * summary is printed to stderr and the histograms reset.
+ */
+public final class LatencyStats {
+    private LatencyStats() {}
+
+    private static volatile boolean enabled = Boolean.getBoolean("logging.latency");
+
+    private static final LogLevel[] levels = LogLevel.values();
+    private static final LatencyHistogram[] byLevel = new LatencyHistogram[levels.length];
+    static {
+        for ( int i = 0 ; i < levels.length ; i++ )
+            byLevel[i] = new LatencyHistogram(levels[i].name());
+    }
+    private static final Map<String, LatencyHistogram> byHandler = new ConcurrentHashMap<>();
+
+    private static final Object lock = new Object();
+    private static ScheduledExecutorService reporter = null;
+    private static ScheduledFuture<?> reporting = null;
+
+    static {
+        long interval = Long.getLong("logging.latency.report", -1L);
+        if ( interval > 0 )
+            startReporting(interval);
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** The histogram for logging calls at a level. */
+    public static LatencyHistogram level(LogLevel level) {
+        return byLevel[level.ordinal()];
+    }
+
+    /** The histogram for {@code publish} of a handler, by name. */
+    public static LatencyHistogram handler(String name) {
+        return byHandler.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /** Summary of all histograms with values, one per line. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        for ( LatencyHistogram h : byLevel ) {
+            if ( h.count() > 0 )
+                sb.append(h.summary()).append('\n');
+        }
+        byHandler.values().forEach(h -> {
+            if ( h.count() > 0 )
+                sb.append(h.summary()).append('\n');
+        });
+        return sb.toString();
+    }
+
+    public static void reset() {
+        for ( LatencyHistogram h : byLevel )
+            h.reset();
+        byHandler.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Print the report to stderr and reset the histograms every {@code intervalMillis}.
+     * A value of zero or less stops reporting.
+     */
+    public static void startReporting(long intervalMillis) {
+        synchronized(lock) {
+            if ( reporting != null ) {
+                reporting.cancel(false);
+                reporting = null;
+            }
+            if ( intervalMillis <= 0 )
+                return;
+            if ( reporter == null ) {
+                reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "logging-latency-report");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            reporting = reporter.scheduleAtFixedRate(LatencyStats::reportAndReset,
+                                                     intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void reportAndReset() {
+        String report = report();
+        reset();
+        if ( !report.isEmpty() )
+            LoggingSystem.logAlways("Logging latency\n%s", report);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import logging.jfr.JfrEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+/**
+ * Deferred logging setup.
+ * <p>
+ * When enabled, the first log event starts {@link LoggingSystem#setLogging()} on
+ * a background thread. Events arriving before setup has finished are kept, up to
+ * a limit, and logged in order when it has. When the limit is reached, events below
+ * INFO are dropped first. Messages are formatted when logged, so mutable arguments
+ * show their state at that time, and are prefixed with the time and thread of the
+ * original call.
+ *
+ * @see LoggingSystem#setLazy(boolean)
+ */
+final class LazySetup {
+    private LazySetup() {}
+
+    private static final int MAX_EVENTS = 256;
+
+    private static final Object lock = new Object();
+    // True while setup is deferred or in progress.
+    private static volatile boolean pending = Boolean.getBoolean("logging.lazy");
+    private static volatile boolean enabled = pending;
+    // Guarded by lock.
+    private static boolean started = false;
+    private static final ArrayDeque<Event> events = new ArrayDeque<>();
+    // Number of events in the buffer below INFO.
+    private static int lowEvents = 0;
+    private static long dropped = 0;
+
+    private static final DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private static class Event {
+        final String loggerName;
+        final Level level;
+        // Message, or format if args is not null.
+        final String message;
+        final Object[] args;
+        final Throwable throwable;
+        final long timestamp;
+        final String threadName;
+
+        Event(String loggerName, Level level, String message, Object[] args, Throwable throwable) {
+            this.loggerName = loggerName;
+            this.level = level;
+            this.message = message;
+            this.args = args;
+            this.throwable = throwable;
+            this.timestamp = System.currentTimeMillis();
+            this.threadName = Thread.currentThread().getName();
+        }
+
+        String formatted() {
+            String msg = ( args == null ) ? message : LogDispatch.format(message, args);
+            LocalTime time = LocalTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+            return "(" + timeFormat.format(time) + " [" + threadName + "]) " + msg;
+        }
+    }
+
+    private static boolean isLow(Level level) {
+        return level.toInt() < Level.INFO.toInt();
+    }
+
+    static void setEnabled(boolean value) {
+        synchronized(lock) {
+            enabled = value;
+            pending = value && !started;
+        }
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Whether events should be passed to {@link #buffer}. */
+    static boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * Keep an event until setup has finished, and start setup if it has not been started.
+     * Returns false if setup has finished and the event should be logged now.
+     */
+    static boolean buffer(String loggerName, Level level, String message, Throwable throwable) {
+        return buffer(loggerName, level, message, null, throwable);
+    }
+
+    /** {@link #buffer(String, Level, String, Throwable)} for a format and its arguments. */
+    static boolean buffer(String loggerName, Level level, String fmt, Object[] args, Throwable throwable) {
+        synchronized(lock) {
+            if ( !pending )
+                return false;
+            if ( !started ) {
+                started = true;
+                Thread thread = new Thread(LazySetup::runSetup, "logging-setup");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            boolean low = isLow(level);
+            if ( events.size() >= MAX_EVENTS ) {
+                dropped++;
+                if ( lowEvents > 0 )
+                    removeOldestLow();
+                else if ( low )
+                    // Keep the INFO and above events already buffered.
+                    return true;
+                else
+                    events.removeFirst();
+            }
+            events.addLast(new Event(loggerName, level, fmt, args, throwable));
+            if ( low )
+                lowEvents++;
+            return true;
+        }
+    }
+
+    private static void removeOldestLow() {
+        for ( Iterator<Event> iter = events.iterator() ; iter.hasNext() ; ) {
+            if ( isLow(iter.next().level) ) {
+                iter.remove();
+                lowEvents--;
+                return;
+            }
+        }
+    }
+
+    private static void runSetup() {
+        try {
+            LogCtl.setLogging();
+        } finally {
+            complete();
+        }
+    }
+
+    /**
+     * Setup has finished: log any events kept while it was in progress.
+     * Threads logging while this happens wait so that the order of events is kept.
+     */
+    static void complete() {
+        if ( !pending )
+            return;
+        synchronized(lock) {
+            if ( !pending )
+                return;
+            started = true;
+            if ( dropped > 0 ) {
+                LoggingSystem.logAlways("%d log events dropped during deferred setup", dropped);
+                JfrEvents.recordsDropped("LazySetup", dropped);
+            }
+            Event e;
+            while ( (e = events.pollFirst()) != null ) {
+                Logger log = LoggerFactory.getLogger(e.loggerName);
+                if ( log.isEnabledForLevel(e.level) )
+                    LogDispatch.emit(log, e.level, e.formatted(), e.throwable);
+            }
+            lowEvents = 0;
+            dropped = 0;
+            pending = false;
+        }
+    }
+}
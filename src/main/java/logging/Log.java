@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
 /** Simple wrappers and operations for convenient, non-time critical logging,
  * when coding needs just a few log messages in the code
@@ -34,47 +35,47 @@ public class Log {
     private Log() {}
 
     static public void info(String caller, String msg) {
-        log(caller).info(msg);
+        LogDispatch.log(log(caller), Level.INFO, null, msg);
     }
 
     static public void info(Object caller, String msg) {
-        log(caller.getClass()).info(msg);
+        LogDispatch.log(log(caller.getClass()), Level.INFO, null, msg);
     }
 
     static public void info(Class<? > cls, String msg) {
-        log(cls).info(msg);
+        LogDispatch.log(log(cls), Level.INFO, null, msg);
     }
 
     static public void info(Object caller, String msg, Throwable th) {
-        log(caller.getClass()).info(msg, th);
+        LogDispatch.log(log(caller.getClass()), Level.INFO, th, msg);
     }
 
     static public void info(Class<? > cls, String msg, Throwable th) {
-        log(cls).info(msg, th);
+        LogDispatch.log(log(cls), Level.INFO, th, msg);
     }
 
     static public void debug(String caller, String msg) {
-        log(caller).debug(msg);
+        LogDispatch.log(log(caller), Level.DEBUG, null, msg);
     }
 
     static public void debug(Object caller, String msg) {
-        log(caller.getClass()).debug(msg);
+        LogDispatch.log(log(caller.getClass()), Level.DEBUG, null, msg);
     }
 
     static public void debug(Class<? > cls, String msg) {
-        log(cls).debug(msg);
+        LogDispatch.log(log(cls), Level.DEBUG, null, msg);
     }
 
     static public void debug(Object caller, String msg, Throwable th) {
-        log(caller.getClass()).debug(msg, th);
+        LogDispatch.log(log(caller.getClass()), Level.DEBUG, th, msg);
     }
 
     static public void debug(Class<? > cls, String msg, Throwable th) {
-        log(cls).debug(msg, th);
+        LogDispatch.log(log(cls), Level.DEBUG, th, msg);
     }
 
     static public void warn(String caller, String msg) {
-        log(caller).warn(msg);
+        LogDispatch.log(log(caller), Level.WARN, null, msg);
     }
 
     static public void warn(Object caller, String msg) {
@@ -82,7 +83,7 @@ public class Log {
     }
 
     static public void warn(Class<? > cls, String msg) {
-        log(cls).warn(msg);
+        LogDispatch.log(log(cls), Level.WARN, null, msg);
     }
 
     static public void warn(Object caller, String msg, Throwable th) {
@@ -90,7 +91,7 @@ public class Log {
     }
 
     static public void warn(Class<? > cls, String msg, Throwable th) {
-        log(cls).warn(msg, th);
+        LogDispatch.log(log(cls), Level.WARN, th, msg);
     }
 
     /** @deprecated Use {@code error}. */
@@ -102,7 +103,7 @@ public class Log {
     /** @deprecated Use {@code error}. */
     @Deprecated
     static public void fatal(Class<? > cls, String msg) {
-        log(cls).error(msg);
+        LogDispatch.log(log(cls), Level.ERROR, null, msg);
     }
 
     /** @deprecated Use {@code error}. */
@@ -114,13 +115,13 @@ public class Log {
     /** @deprecated Use {@code error}. */
     @Deprecated
     static public void fatal(Class<? > cls, String msg, Throwable th) {
-        log(cls).error(msg, th);
+        LogDispatch.log(log(cls), Level.ERROR, th, msg);
     }
 
     /** @deprecated Use {@code error}. */
     @Deprecated
     static public void fatal(String caller, String msg) {
-        log(caller).error(msg);
+        LogDispatch.log(log(caller), Level.ERROR, null, msg);
     }
 
     static private Logger log(Class<? > cls) {
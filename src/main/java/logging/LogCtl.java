@@ -18,6 +18,9 @@
 
 package logging;
 
+import java.util.List;
+import java.util.Map;
+
 import logging.setup.LoggingSetup;
 import org.slf4j.Logger;
 
@@ -30,20 +33,32 @@ import org.slf4j.Logger;
  * <li>"debug"
  * <li>"info"
  * <li>"warn" or "warning"
- * <li>"error"
+ * <li>"error" or "severe"
  * <li>"off"
  * </ul>
+ * Other names turn on all levels (see {@link LogLevel#parse}).
  * @see LogFmt
  */
 
 public class LogCtl {
 
-    static { setLogging(); }
-    private static LoggingSetup loggingSetup = null;
+    // Set by whichever thread does the setup, possibly the lazy setup thread.
+    // Declared before the static initializer, without an initial value, so that
+    // the setup done there is not reset to null.
+    private static volatile LoggingSetup loggingSetup;
+    static { if ( !LoggingSystem.isLazy() ) setLogging(); }
 
     static public void setLogging() {
         LoggingSystem.setLogging();
         loggingSetup = LoggingSystem.config();
+        LazySetup.complete();
+    }
+
+    // Setup may have been deferred (LoggingSystem.setLazy).
+    private static LoggingSetup loggingSetup() {
+        if ( loggingSetup == null )
+            setLogging();
+        return loggingSetup;
     }
 
     /** Set the level of a logger.*/
@@ -57,7 +72,83 @@ public class LogCtl {
     }
 
     static public void setLevel(String logger, String level) {
-        loggingSetup.setLevel(logger, level);
+        loggingSetup().setLevel(logger, level);
+    }
+
+    /**
+     * Set the levels of several loggers, given as logger name to level name.
+     * This is cheaper than calling {@link #setLevel(String, String)} for each one.
+     */
+    static public void setLevels(Map<String, String> levels) {
+        loggingSetup().setLevels(levels);
+    }
+
+    /** The level in effect for a logger, or null if not known. */
+    static public LogLevel getEffectiveLevel(String logger) {
+        return loggingSetup().getEffectiveLevel(logger);
+    }
+
+    /** Register a listener to be told of level changes and reconfiguration. */
+    static public void addLevelListener(LogLevelListener listener) {
+        LoggingSetup.addLevelListener(listener);
+    }
+
+    static public void removeLevelListener(LogLevelListener listener) {
+        LoggingSetup.removeLevelListener(listener);
+    }
+
+    /**
+     * Turn counting of log events by logger and level on or off.
+     * @see EventCounters
+     */
+    static public void setCounting(boolean value) {
+        EventCounters.setEnabled(value);
+        if ( value )
+            loggingSetup().installCounting();
+    }
+
+    /** The current event counts. */
+    static public List<EventCounters.Count> eventCounts() {
+        return EventCounters.snapshot();
+    }
+
+    /** Pass the current event counts to a visitor, without building a snapshot. */
+    static public void visitEventCounts(EventCounters.Visitor visitor) {
+        EventCounters.visit(visitor);
+    }
+
+    static public void resetEventCounts() {
+        EventCounters.reset();
+    }
+
+    /**
+     * Turn timing of logging calls on or off.
+     * @see LatencyStats
+     */
+    static public void setLatencyTiming(boolean value) {
+        LatencyStats.setEnabled(value);
+    }
+
+    /** The logging latency summary: p50, p99, p999 and max per level and per handler. */
+    static public String latencyReport() {
+        return LatencyStats.report();
+    }
+
+    static public void resetLatency() {
+        LatencyStats.reset();
+    }
+
+    /**
+     * Sample a fraction (0 to 1) of log calls to find the statements producing the most output.
+     * @see CallSiteProfiler
+     */
+    static public void setCallSiteSampling(double fraction) {
+        CallSiteProfiler.setSampling(fraction);
+    }
+
+    /** The top {@code n} log call sites, by count and by bytes. */
+    static public String callSiteReport(int n) {
+        return CallSiteProfiler.report(n);
     }
 
     /**
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import org.slf4j.MDC;
+import org.slf4j.helpers.BasicMDCAdapter;
+import org.slf4j.helpers.NOPMDCAdapter;
+import org.slf4j.spi.MDCAdapter;
+
+/**
+ * Carry the logging context ({@link MDC}) to tasks run on other threads.
+ * <p>
+ * Each {@code wrap...} operation takes an immutable snapshot of the caller's MDC when it is called
+ * (for an executor, when the task is submitted). When the task runs, the snapshot is
+ * installed for the duration of the task and the thread's own MDC is put back
+ * afterwards. An empty snapshot on a thread with no MDC, the common case for pool
+ * threads, only costs a check before the task and {@code MDC.clear()} after.
+ * Whether the thread's MDC is empty is checked without copying it for the slf4j
+ * basic and no-op MDC adapters; for other adapters it is copied to be saved. Installing
+ * a non-empty snapshot copies it, because {@code MDC.setContextMap} copies.
+ * <pre>
+ *    ExecutorService executor = LogCtx.wrap(Executors.newFixedThreadPool(4));
+ *    CompletableFuture.supplyAsync(LogCtx.wrapSupplier(() -&gt; work()));
+ * </pre>
+ * The task wrappers have different names because a lambda can often be any of
+ * {@link Runnable}, {@link Callable} or {@link Supplier}.
+ * <p>
+ * This works through the slf4j MDC API so applies to whichever backend is in use;
+ * backends without MDC support ignore it.
+ */
+public final class LogCtx {
+    private LogCtx() {}
+
+    // For tests: an adapter to use in place of the provider's, which may have no MDC.
+    /* package */ static MDCAdapter testAdapter = null;
+
+    private static MDCAdapter mdc() {
+        MDCAdapter adapter = testAdapter;
+        return ( adapter != null ) ? adapter : MDC.getMDCAdapter();
+    }
+
+    /** An immutable copy of the current thread's MDC. */
+    public static Map<String, String> snapshot() {
+        Map<String, String> x = mdc().getCopyOfContextMap();
+        return ( x == null || x.isEmpty() ) ? Map.of() : Map.copyOf(x);
+    }
+
+    /** Run the action with the given MDC, then restore the thread's MDC. */
+    public static void runWith(Map<String, String> snapshot, Runnable action) {
+        Map<String, String> previous = install(snapshot);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /** Call the action with the given MDC, then restore the thread's MDC. */
+    public static <T> T callWith(Map<String, String> snapshot, Callable<T> action) throws Exception {
+        Map<String, String> previous = install(snapshot);
+        try {
+            return action.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static Runnable wrapRunnable(Runnable action) {
+        Map<String, String> snapshot = snapshot();
+        return () -> runWith(snapshot, action);
+    }
+
+    public static <T> Callable<T> wrapCallable(Callable<T> action) {
+        Map<String, String> snapshot = snapshot();
+        return () -> callWith(snapshot, action);
+    }
+
+    /** For example, for {@link CompletableFuture#supplyAsync(Supplier)}. */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> action) {
+        Map<String, String> snapshot = snapshot();
+        return () -> {
+            Map<String, String> previous = install(snapshot);
+            try {
+                return action.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * An executor that runs each task with the MDC of the thread that submitted it.
+     * For example, for the {@code ...Async} operations of {@link CompletableFuture}.
+     */
+    public static Executor wrap(Executor executor) {
+        return command -> executor.execute(wrapRunnable(command));
+    }
+
+    /** An executor service that runs each task with the MDC of the thread that submitted it. */
+    public static ExecutorService wrap(ExecutorService executor) {
+        return new MDCExecutorService(executor);
+    }
+
+    // Returns the thread's MDC to restore, or null if there is nothing to restore.
+    private static Map<String, String> install(Map<String, String> snapshot) {
+        Map<String, String> previous = isEmptyMDC() ? null : mdc().getCopyOfContextMap();
+        if ( previous != null && previous.isEmpty() )
+            previous = null;
+        if ( snapshot.isEmpty() ) {
+            if ( previous != null )
+                mdc().clear();
+        } else
+            mdc().setContextMap(snapshot);
+        return previous;
+    }
+
+    // Whether the thread's MDC is known to be empty, without copying it.
+    private static boolean isEmptyMDC() {
+        MDCAdapter adapter = mdc();
+        if ( adapter instanceof NOPMDCAdapter )
+            return true;
+        if ( adapter instanceof BasicMDCAdapter ) {
+            Set<String> keys = ((BasicMDCAdapter)adapter).getKeys();
+            return keys == null || keys.isEmpty();
+        }
+        return false;
+    }
+
+    private static void restore(Map<String, String> previous) {
+        // If there was no MDC, clear anything the task left.
+        if ( previous != null )
+            mdc().setContextMap(previous);
+        else
+            mdc().clear();
+    }
+
+    private static <T> List<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> x = new ArrayList<>(tasks.size());
+        for ( Callable<T> task : tasks )
+            x.add(wrapCallable(task));
+        return x;
+    }
+
+    private static class MDCExecutorService implements ExecutorService {
+        private final ExecutorService executor;
+
+        MDCExecutorService(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override public void execute(Runnable command)           { executor.execute(wrapRunnable(command)); }
+        @Override public Future<?> submit(Runnable task)          { return executor.submit(wrapRunnable(task)); }
+        @Override public <T> Future<T> submit(Runnable task, T result) { return executor.submit(wrapRunnable(task), result); }
+        @Override public <T> Future<T> submit(Callable<T> task)   { return executor.submit(wrapCallable(task)); }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+            return executor.invokeAll(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+            return executor.invokeAll(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+            return executor.invokeAny(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return executor.invokeAny(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override public void shutdown()                          { executor.shutdown(); }
+        @Override public List<Runnable> shutdownNow()             { return executor.shutdownNow(); }
+        @Override public boolean isShutdown()                     { return executor.isShutdown(); }
+        @Override public boolean isTerminated()                   { return executor.isTerminated(); }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return executor.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.IllegalFormatException;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+/**
+ * The common path for log events from {@link LogFmt} and {@link Log}.
+ */
+final class LogDispatch {
+    private LogDispatch() {}
+
+    /**
+     * Log a message with {@code String.format} style arguments.
+     * The message is only formatted if it is going to be logged.
+     */
+    static void logFmt(Logger log, Level level, Throwable th, String fmt, Object[] args) {
+        if ( LatencyStats.isEnabled() ) {
+            long start = System.nanoTime();
+            logFmt0(log, level, th, fmt, args);
+            LatencyStats.level(LogLevel.fromSLF4J(level)).record(System.nanoTime() - start);
+            return;
+        }
+        logFmt0(log, level, th, fmt, args);
+    }
+
+    private static void logFmt0(Logger log, Level level, Throwable th, String fmt, Object[] args) {
+        if ( LazySetup.isPending() && LazySetup.buffer(log.getName(), level, fmt, args, th) )
+            return;
+        if ( log.isEnabledForLevel(level) ) {
+            String msg = format(fmt, args);
+            emit(log, level, msg, th);
+            if ( CallSiteProfiler.isEnabled() )
+                CallSiteProfiler.sample(msg);
+        } else if ( EventCounters.isEnabled() )
+            EventCounters.disabled(log.getName(), LogLevel.fromSLF4J(level));
+    }
+
+    /** Log a message. */
+    static void log(Logger log, Level level, Throwable th, String msg) {
+        if ( LatencyStats.isEnabled() ) {
+            long start = System.nanoTime();
+            log0(log, level, th, msg);
+            LatencyStats.level(LogLevel.fromSLF4J(level)).record(System.nanoTime() - start);
+            return;
+        }
+        log0(log, level, th, msg);
+    }
+
+    private static void log0(Logger log, Level level, Throwable th, String msg) {
+        if ( LazySetup.isPending() && LazySetup.buffer(log.getName(), level, msg, th) )
+            return;
+        if ( log.isEnabledForLevel(level) ) {
+            emit(log, level, msg, th);
+            if ( CallSiteProfiler.isEnabled() )
+                CallSiteProfiler.sample(msg);
+        } else if ( EventCounters.isEnabled() )
+            EventCounters.disabled(log.getName(), LogLevel.fromSLF4J(level));
+    }
+
+    /** Log a message without checking whether the level is enabled. */
+    static void emit(Logger log, Level level, String msg, Throwable th) {
+        switch (level) {
+            case TRACE:
+                if ( th == null ) log.trace(msg); else log.trace(msg, th);
+                return;
+            case DEBUG:
+                if ( th == null ) log.debug(msg); else log.debug(msg, th);
+                return;
+            case INFO:
+                if ( th == null ) log.info(msg); else log.info(msg, th);
+                return;
+            case WARN:
+                if ( th == null ) log.warn(msg); else log.warn(msg, th);
+                return;
+            case ERROR:
+                if ( th == null ) log.error(msg); else log.error(msg, th);
+                return;
+        }
+    }
+
+    static String format(String fmt, Object[] args) {
+        try {
+            return String.format(fmt, args);
+        } catch (IllegalFormatException ex) {
+            // return something, however grotty.
+            return fmt+" "+args;
+        }
+    }
+
+    /** The length of the string encoded as UTF-8, without encoding it. */
+    static long utf8Length(String s) {
+        long n = 0;
+        for ( int i = 0 ; i < s.length() ; i++ ) {
+            char c = s.charAt(i);
+            if ( c < 0x80 )
+                n += 1;
+            else if ( c < 0x800 )
+                n += 2;
+            else if ( Character.isHighSurrogate(c) && i+1 < s.length() && Character.isLowSurrogate(s.charAt(i+1)) ) {
+                n += 4;
+                i++;
+            } else
+                n += 3;
+        }
+        return n;
+    }
+}
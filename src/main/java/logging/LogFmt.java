@@ -18,10 +18,9 @@
 
 package logging;
 
-import java.util.IllegalFormatException;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
 /**
  * Logging with String.format (which can be expensive).
@@ -39,14 +38,12 @@ import org.slf4j.LoggerFactory;
 public class LogFmt {
     /* Log at 'trace' level. */
     public static void trace(Logger log, String fmt, Object...args) {
-        if ( log.isTraceEnabled() )
-            log.trace(format(fmt, args));
+        LogDispatch.logFmt(log, Level.TRACE, null, fmt, args);
     }
 
     /* Log at 'trace' level. */
     public static void trace(Logger log, Throwable th, String fmt, Object...args) {
-        if ( log.isTraceEnabled() )
-            log.trace(format(fmt, args), th);
+        LogDispatch.logFmt(log, Level.TRACE, th, fmt, args);
     }
 
     /* Log at 'trace' level. */
@@ -61,14 +58,12 @@ public class LogFmt {
 
     /* Log at 'debug' level */
     public static void debug(Logger log, String fmt, Object...args) {
-        if ( log.isDebugEnabled() )
-            log.debug(format(fmt, args));
+        LogDispatch.logFmt(log, Level.DEBUG, null, fmt, args);
     }
 
     /* Log at 'debug' level */
     public static void debug(Logger log, Throwable th, String fmt, Object...args) {
-        if ( log.isDebugEnabled() )
-            log.debug(format(fmt, args), th);
+        LogDispatch.logFmt(log, Level.DEBUG, th, fmt, args);
     }
 
     /* Log at 'debug' level */
@@ -83,14 +78,12 @@ public class LogFmt {
 
     /* Log at 'info' level */
     public static void info(Logger log, String fmt, Object...args) {
-        if ( log.isInfoEnabled() )
-            log.info(format(fmt, args));
+        LogDispatch.logFmt(log, Level.INFO, null, fmt, args);
     }
 
     /* Log at 'info' level */
     public static void info(Logger log, Throwable th, String fmt, Object...args) {
-        if ( log.isInfoEnabled() )
-            log.info(format(fmt, args), th);
+        LogDispatch.logFmt(log, Level.INFO, th, fmt, args);
     }
 
     /* Log at 'info' level */
@@ -105,14 +98,12 @@ public class LogFmt {
 
     /* Log at 'warn' level */
     public static void warn(Logger log, String fmt, Object...args) {
-        if ( log.isWarnEnabled() )
-            log.warn(format(fmt, args));
+        LogDispatch.logFmt(log, Level.WARN, null, fmt, args);
     }
 
     /* Log at 'warn' level */
     public static void warn(Logger log, Throwable th, String fmt, Object...args) {
-        if ( log.isWarnEnabled() )
-            log.warn(format(fmt, args), th);
+        LogDispatch.logFmt(log, Level.WARN, th, fmt, args);
     }
 
     /* Log at 'warn' level */
@@ -127,14 +118,12 @@ public class LogFmt {
 
    /* Log at 'error' level */
     public static void error(Logger log, String fmt, Object...args) {
-        if ( log.isErrorEnabled() )
-            log.error(format(fmt, args));
+        LogDispatch.logFmt(log, Level.ERROR, null, fmt, args);
     }
 
     /* Log at 'error' level */
     public static void error(Logger log, Throwable th, String fmt, Object...args) {
-        if ( log.isErrorEnabled() )
-            log.error(format(fmt, args), th);
+        LogDispatch.logFmt(log, Level.ERROR, th, fmt, args);
     }
 
     /* Log at 'error' level */
@@ -148,15 +137,6 @@ public class LogFmt {
     }
 
 
-    private static String format(String fmt, Object[] args) {
-        try {
-            return String.format(fmt, args);
-        } catch (IllegalFormatException ex) {
-            // return something, however grotty.
-            return fmt+" "+args;
-        }
-    }
-
     private static Logger log(Class<?> cls) {
         return LoggerFactory.getLogger(cls);
     }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.Locale;
+
+/**
+ * Logging levels, independent of the logging backend.
+ * <p>
+ * {@link #ALL} is also the level for names that are not recognized, so that
+ * setting an unknown level turns on logging.
+ */
+public enum LogLevel {
+    ALL, TRACE, DEBUG, INFO, WARN, ERROR, OFF;
+
+    /**
+     * Parse a level name (case insensitive): "trace", "debug", "info", "warn" or
+     * "warning", "error" or "severe", "off", "all". Other names are {@link #ALL};
+     * null is null, meaning "no level set".
+     */
+    public static LogLevel parse(String levelName) {
+        if ( levelName == null )
+            return null;
+        switch (levelName.toLowerCase(Locale.ROOT)) {
+            case "trace":               return TRACE;
+            case "debug":               return DEBUG;
+            case "info":                return INFO;
+            case "warn":
+            case "warning":             return WARN;
+            case "error":
+            case "severe":              return ERROR;
+            case "off":                 return OFF;
+            default:                    return ALL;
+        }
+    }
+
+    /** The level for an slf4j level. */
+    public static LogLevel fromSLF4J(org.slf4j.event.Level level) {
+        if ( level == null )
+            return null;
+        switch (level) {
+            case TRACE: return TRACE;
+            case DEBUG: return DEBUG;
+            case INFO:  return INFO;
+            case WARN:  return WARN;
+            case ERROR: return ERROR;
+            default:    return ALL;
+        }
+    }
+
+    /**
+     * The level for a java.util.logging level: SEVERE is ERROR, WARNING is WARN,
+     * INFO is INFO, CONFIG, FINE and FINER are DEBUG, FINEST is TRACE.
+     */
+    public static LogLevel fromJUL(java.util.logging.Level level) {
+        if ( level == null )
+            return null;
+        int x = level.intValue();
+        if ( x == java.util.logging.Level.OFF.intValue() )
+            return OFF;
+        if ( x >= java.util.logging.Level.SEVERE.intValue() )
+            return ERROR;
+        if ( x >= java.util.logging.Level.WARNING.intValue() )
+            return WARN;
+        if ( x >= java.util.logging.Level.INFO.intValue() )
+            return INFO;
+        // FINER is DEBUG, as for the JUL to slf4j bridge.
+        if ( x >= java.util.logging.Level.FINER.intValue() )
+            return DEBUG;
+        // FINEST and any level above ALL.
+        if ( x > java.util.logging.Level.ALL.intValue() )
+            return TRACE;
+        return ALL;
+    }
+}
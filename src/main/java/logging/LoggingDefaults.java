@@ -25,13 +25,16 @@ import logging.jul.ConsoleHandlerStream;
  * Better to set explicitly.
  */
 public class LoggingDefaults {
+    /** Log4j2 pattern for the default console output */
+    public static final String defaultLog4j2_pattern = "%d{HH:mm:ss} %-5p %-15c{1} :: %m%n";
+
     // Log4J2, non-strict XML format
     public static final String defaultLog4j2_xml = String.join("\n"
         ,"<?xml version='1.0' encoding='UTF-8'?>"
         ,"<Configuration status='INFO'>"
         ,"  <Appenders>"
         ,"    <Console name='STDOUT' target='SYSTEM_OUT'>"
-        ,"      <PatternLayout pattern='%d{HH:mm:ss} %-5p %-15c{1} :: %m%n'/>"
+        ,"      <PatternLayout pattern='"+defaultLog4j2_pattern+"'/>"
         ,"    </Console>"
         ,"  </Appenders>"
         ,"  <Loggers>"
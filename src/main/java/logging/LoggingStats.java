@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of logging activity, updated by the handlers in {@code logging.jul}.
+ * Events are counted when a handler outputs them. Other backends do not update
+ * these counters.
+ */
+public final class LoggingStats {
+    private LoggingStats() {}
+
+    private static final LongAdder[] events = new LongAdder[LogLevel.values().length];
+    static {
+        for ( int i = 0 ; i < events.length ; i++ )
+            events[i] = new LongAdder();
+    }
+    private static final LongAdder dropped = new LongAdder();
+    private static final LongAdder bytesWritten = new LongAdder();
+    private static final LongAdder stallNanos = new LongAdder();
+    private static final AtomicLong longestStall = new AtomicLong();
+
+    /** Count an event output at a level. */
+    public static void event(LogLevel level) {
+        events[level.ordinal()].increment();
+    }
+
+    /** Count events dropped, for example because a queue was full. */
+    public static void dropped(long count) {
+        dropped.add(count);
+    }
+
+    public static void bytesWritten(long count) {
+        bytesWritten.add(count);
+    }
+
+    /** Record the time, in nanoseconds, a write of output blocked the logging thread. */
+    public static void writeStall(long nanos) {
+        stallNanos.add(nanos);
+        longestStall.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Number of events output at a level. */
+    public static long getEvents(LogLevel level) {
+        return events[level.ordinal()].sum();
+    }
+
+    public static long getDropped() {
+        return dropped.sum();
+    }
+
+    public static long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /** Total time in writes of output, in nanoseconds. */
+    public static long getStallNanos() {
+        return stallNanos.sum();
+    }
+
+    /** Longest single write of output, in nanoseconds. */
+    public static long getLongestStallNanos() {
+        return longestStall.get();
+    }
+
+    public static void reset() {
+        for ( LongAdder x : events )
+            x.reset();
+        dropped.reset();
+        bytesWritten.reset();
+        stallNanos.reset();
+        longestStall.set(0);
+    }
+}
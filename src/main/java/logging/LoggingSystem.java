@@ -19,12 +19,15 @@
 package logging;
 
 import java.io.PrintStream;
-import java.util.List;
-import java.util.ServiceLoader;
-import java.util.stream.Collectors;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import logging.jfr.JfrEvents;
 import logging.setup.*;
-import org.slf4j.spi.SLF4JServiceProvider;
 
 /**
  * Provide encapsulation of the different logging provided when used with slf4j (or used
@@ -71,6 +74,11 @@ import org.slf4j.spi.SLF4JServiceProvider;
  * <li>Look on the classpath:{PathBase}/{config} as a java resource
  * <li>Use a default string.
  * </ol>
+ * Setting the system property {@code logging.backend.index} to a file name records
+ * the choice made, and later runs with the same classpath reuse it, skipping these steps.
+ * <p>
+ * Setting the system property {@code logging.jmx=true} registers a {@link LoggingSystemMXBean}
+ * when logging is setup.
  */
 
 public class LoggingSystem {
@@ -102,6 +110,27 @@ public class LoggingSystem {
 
     // >>>> Log logging
 
+    /**
+     * Parse a size in bytes, with an optional suffix K, KB, M, MB, G or GB (case
+     * insensitive, powers of 1024).
+     * @throws NumberFormatException if the size is not valid.
+     */
+    public static long parseSize(String x) {
+        String s = x.trim().toUpperCase(Locale.ROOT);
+        if ( s.endsWith("B") )
+            s = s.substring(0, s.length()-1);
+        long multiplier = 1;
+        if ( s.endsWith("K") )
+            multiplier = 1024L;
+        else if ( s.endsWith("M") )
+            multiplier = 1024L*1024;
+        else if ( s.endsWith("G") )
+            multiplier = 1024L*1024*1024;
+        if ( multiplier != 1 )
+            s = s.substring(0, s.length()-1);
+        return Long.parseLong(s.trim())*multiplier;
+    }
+
     private static boolean allowLoggingReset  = true;
 
     private static Object lock = new Object();
@@ -139,8 +168,78 @@ public class LoggingSystem {
         pathBase = string;
     }
 
+    // Milliseconds to wait for changes to a configuration file to settle, or -1 for "don't watch".
+    private static long watchDebounce = Long.getLong("logging.watch", -1L);
+
+    /**
+     * Watch a configuration file found as a {@code file:} and re-apply it when it changes.
+     * The configuration is re-read after {@code debounceMillis} with no further changes.
+     * A negative value turns watching off (the default).
+     * Can also be set with the system property {@code logging.watch}.
+     * Must be called before {@link #setLogging()}.
+     */
+    public static void setWatchConfiguration(long debounceMillis) {
+        watchDebounce = debounceMillis;
+    }
+
+    /** Milliseconds after a configuration file change before it is re-applied, or -1 for "don't watch". */
+    public static long getWatchConfiguration() {
+        return watchDebounce;
+    }
+
     private static LoggingSetup theLoggingSetup = new LoggingSetupNoOp();
 
+    /**
+     * Defer logging setup until the first logging call through {@link LogFmt} or
+     * {@link Log}, or the first use of {@link LogCtl} to change a level.
+     * A logging call starts setup on a background thread; log events from {@code LogFmt}
+     * and {@code Log} are held in a small buffer until setup has finished, then logged.
+     * Can also be set with the system property {@code logging.lazy=true}.
+     * Must be called before {@link LogCtl} is first used.
+     */
+    public static void setLazy(boolean value) {
+        LazySetup.setEnabled(value);
+    }
+
+    /** Whether logging setup is deferred. See {@link #setLazy}. */
+    public static boolean isLazy() {
+        return LazySetup.isEnabled();
+    }
+
+    /** The JMX object name of the {@link LoggingSystemMXBean}. */
+    public static final String MBEAN_NAME = "logging:type=LoggingSystem";
+
+    /**
+     * Register the {@link LoggingSystemMXBean} with the platform MBean server.
+     * Does nothing if it is already registered.
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            synchronized(lock) {
+                if ( !server.isRegistered(name) )
+                    server.registerMBean(new LoggingSystemJmx(), name);
+            }
+        } catch (JMException ex) {
+            logAlways("Failed to register %s: %s", MBEAN_NAME, ex.getMessage());
+        }
+    }
+
+    /** Remove the {@link LoggingSystemMXBean} from the platform MBean server, if registered. */
+    public static void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            synchronized(lock) {
+                if ( server.isRegistered(name) )
+                    server.unregisterMBean(name);
+            }
+        } catch (JMException ex) {
+            logAlways("Failed to unregister %s: %s", MBEAN_NAME, ex.getMessage());
+        }
+    }
+
     public static LoggingSetup config() {
         setLogging();
         return theLoggingSetup;
@@ -174,30 +273,66 @@ public class LoggingSystem {
             return;
         if ( !allowLoggingReset )
             return;
-        loggingInitialized = true;
         allowLoggingReset = false;
+        try {
+            setupLogging();
+        } finally {
+            // Set when setup has finished so that other threads calling
+            // setLogging() wait for it.
+            loggingInitialized = true;
+        }
+        if ( Boolean.getBoolean("logging.jmx") )
+            registerMBean();
+    }
+
+    private static void setupLogging() {
+        long start = System.nanoTime();
+        if ( BackendIndex.isEnabled() && setLoggingFromIndex() ) {
+            logLogging("Setup from index: %.2fms", (System.nanoTime()-start)/1e6);
+            return;
+        }
+
+        JfrEvents.Phase phase = JfrEvents.setupPhase("discovery", null);
+        DiscoveryResult result = discovery();
+        phase.finish(String.join(",", result.getProviders()));
+        logLogging("%s", result);
+
+        LoggingSetup loggingSetup = chooseLoggingSetup(result);
+        if ( loggingSetup == null ) {
+            BackendIndex.record(null);
+            return;
+        }
 
-        List<ServiceLoader.Provider<SLF4JServiceProvider>> providers = search();
+        long startSetup = System.nanoTime();
+        loggingSetup.setup();
+        theLoggingSetup = loggingSetup;
+        long finish = System.nanoTime();
+        logLogging("Setup %s: %.2fms (total %.2fms)", loggingSetup.getDisplayName(),
+                   (finish-startSetup)/1e6, (finish-start)/1e6);
+        BackendIndex.record(loggingSetup);
+    }
 
+    /** Decide on the logging setup to use. Return null for "no setup". */
+    private static LoggingSetup chooseLoggingSetup(DiscoveryResult result) {
         // Discover the binding for logging
-        if ( checkForSimple(providers) ) {
+        if ( result.hasSimple() ) {
             // No specific setup.
             logLogging("slf4j-simple logging found");
-            return;
+            return null;
         }
 
         // Local: like slf4j simple but with java-style formatting
-        boolean hasFmtSimple = checkForFmtSimple(providers);
+        boolean hasFmtSimple = result.hasFmtSimple();
 
-        boolean hasLog4j1 = checkForLog4J1(providers);
-        boolean hasLog4j2 = checkForLog4J2(providers);
-        boolean hasJUL = checkForJUL(providers);
+        boolean hasLog4j1 = result.hasLog4j1();
+        boolean hasLog4j2 = result.hasLog4j2();
+        boolean hasJUL = result.hasJUL();
 
         if ( !hasLog4j1 && !hasLog4j2 && !hasJUL ) {
             // Do nothing - hope logging gets initialized automatically. e.g. logback.
             // In some ways this is the preferred outcome for the war file.
             logLogging("None of Log4j1, Log4j2 nor JUL setup for slf4j");
-            return;
+            return null;
         }
 
         if ( hasLog4j1 && hasLog4j2 && hasJUL ) {
@@ -228,79 +363,51 @@ public class LoggingSystem {
         if ( loggingSetup == null ) {
             logAlways("Failed to find a provider for slf4j");
             // XXX Built-in.
-            return;
-        }
-
-        loggingSetup.setup();
-        theLoggingSetup = loggingSetup;
-    }
-
-    // slf4j 1.8.x uses ServiceLoader
-    // Support for slf4j v1.8.x, v2.0.x.
-    // slf4j uses java.util.ServiceLoader for "org.slf4j.spi.SLF4JServiceProvider"
-
-
-    private static List<ServiceLoader.Provider<SLF4JServiceProvider>> search() {
-        ServiceLoader<SLF4JServiceProvider> sl =
-            ServiceLoader.load(SLF4JServiceProvider.class, LoggingSystem.class.getClassLoader()) ;
-        List<ServiceLoader.Provider<org.slf4j.spi.SLF4JServiceProvider>> x = sl.stream().collect(Collectors.toList());
-        return x;
-    }
-
-    private static boolean checkForClassServiceLoader(List<ServiceLoader.Provider<SLF4JServiceProvider>> providers, String clsName) {
-        for ( ServiceLoader.Provider<SLF4JServiceProvider> p : providers ) {
-            String providerClsName = p.get().getClass().getName();
-            if ( providerClsName.equals(clsName) )
-                return true;
+            return null;
         }
-        return false;
+        return loggingSetup;
     }
 
-    private static boolean checkForSimple(List<ServiceLoader.Provider<SLF4JServiceProvider>> providers) {
-        return checkForClassServiceLoader(providers, "org.slf4j.impl.SimpleLogger");
-    }
-
-    private static boolean checkForFmtSimple(List<ServiceLoader.Provider<SLF4JServiceProvider>> providers) {
-        return checkForClassServiceLoader(providers, "logging.impl.FmtSimpleFactory");
-    }
-    private static boolean checkForLog4J2(List<ServiceLoader.Provider<SLF4JServiceProvider>> providers) {
-        boolean bLog4j = checkForClassServiceLoader(providers, "org.apache.logging.log4j.Logger");
-        boolean bLog4jBinding = checkForClassServiceLoader(providers, "org.apache.logging.slf4j.Log4jLoggerFactory");
-        if ( bLog4j && bLog4jBinding )
-            return true;
-        if ( !bLog4j && !bLog4jBinding )
-            return false;
-        if ( !bLog4j ) {
-            logAlways("Classpath has the log4j-slf4j-impl bridge but not log4j2");
-            return false;
-        }
-        if ( !bLog4jBinding ) {
-            logAlways("Classpath has log4j2 but not the log4j-slf4j-impl bridge");
+    /**
+     * Use the choice recorded by a previous run, if it is for the same classpath.
+     * Return false if there is no usable index entry.
+     */
+    private static boolean setLoggingFromIndex() {
+        BackendIndex index = BackendIndex.read();
+        if ( index == null )
             return false;
-        }
-        return false;
-    }
-
-    private static boolean checkForLog4J1(List<ServiceLoader.Provider<SLF4JServiceProvider>> providers) {
-        boolean bLog4j = checkForClassServiceLoader(providers, "org.apache.log4j.Logger");
-        boolean bLog4jBinding = checkForClassServiceLoader(providers, "org.slf4j.impl.Log4jLoggerAdapter");
-        if ( bLog4j && bLog4jBinding )
+        if ( index.isNoSetup() ) {
+            logLogging("Index: no logging setup");
             return true;
-        if ( !bLog4j && !bLog4jBinding )
-            return false;
-        if ( !bLog4j ) {
-            logAlways("Classpath has the slf4j-log4j binding but not log4j1");
-            return false;
         }
-        if ( !bLog4jBinding ) {
-            logAlways("Classpath has log4j1 but not the slf4j-log4j binding");
+        LoggingSetup loggingSetup = index.createLoggingSetup();
+        if ( loggingSetup == null )
             return false;
-        }
-        return false;
+        logLogging("Index: %s %s", loggingSetup.getDisplayName(), index.getConfigSource());
+        if ( ! loggingSetup.setupFrom(index.getConfigSource()) )
+            return false;
+        theLoggingSetup = loggingSetup;
+        return true;
     }
 
-    private static boolean checkForJUL(List<ServiceLoader.Provider<SLF4JServiceProvider>> providers) {
-        return checkForClass("org.slf4j.impl.JDK14LoggerAdapter");
+    private static volatile DiscoveryResult discoveryResult = null;
+
+    /**
+     * The logging providers on the classpath.
+     * This is worked out once and the result reused.
+     */
+    public static DiscoveryResult discovery() {
+        DiscoveryResult result = discoveryResult;
+        if ( result == null ) {
+            synchronized(lock) {
+                result = discoveryResult;
+                if ( result == null ) {
+                    result = DiscoveryResult.discover();
+                    discoveryResult = result;
+                }
+            }
+        }
+        return result;
     }
 
     // ==== Support for slf4j v1.7.0
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import logging.setup.LoggingSetup;
+
+/** Implementation of {@link LoggingSystemMXBean}. */
+final class LoggingSystemJmx implements LoggingSystemMXBean {
+
+    @Override
+    public String getLoggingSetup() {
+        LoggingSetup setup = LoggingSystem.config();
+        return setup == null ? "none" : setup.getDisplayName();
+    }
+
+    @Override
+    public String getConfigSource() {
+        LoggingSetup setup = LoggingSystem.config();
+        return setup == null ? null : setup.getConfigSource();
+    }
+
+    @Override
+    public String getLevel(String logger) {
+        LogLevel level = LogCtl.getEffectiveLevel(logger);
+        return level == null ? null : level.name();
+    }
+
+    @Override
+    public void setLevel(String logger, String level) {
+        LogCtl.setLevel(logger, level);
+    }
+
+    @Override
+    public void updateLevels(String levels) {
+        Map<String, String> x = new LinkedHashMap<>();
+        for ( String entry : levels.split("[,\\n]") ) {
+            entry = entry.trim();
+            if ( entry.isEmpty() )
+                continue;
+            int idx = entry.indexOf('=');
+            if ( idx < 0 )
+                throw new IllegalArgumentException("Expected logger=level: "+entry);
+            x.put(entry.substring(0, idx).trim(), entry.substring(idx+1).trim());
+        }
+        LogCtl.setLevels(x);
+    }
+
+    @Override public long getTraceEvents()      { return LoggingStats.getEvents(LogLevel.TRACE); }
+    @Override public long getDebugEvents()      { return LoggingStats.getEvents(LogLevel.DEBUG); }
+    @Override public long getInfoEvents()       { return LoggingStats.getEvents(LogLevel.INFO); }
+    @Override public long getWarnEvents()       { return LoggingStats.getEvents(LogLevel.WARN); }
+    @Override public long getErrorEvents()      { return LoggingStats.getEvents(LogLevel.ERROR); }
+    @Override public long getDroppedEvents()    { return LoggingStats.getDropped(); }
+    @Override public long getBytesWritten()     { return LoggingStats.getBytesWritten(); }
+    @Override public long getWriteStallMillis() { return TimeUnit.NANOSECONDS.toMillis(LoggingStats.getStallNanos()); }
+    @Override public long getLongestWriteStallMillis() { return TimeUnit.NANOSECONDS.toMillis(LoggingStats.getLongestStallNanos()); }
+
+    @Override
+    public void resetStatistics() {
+        LoggingStats.reset();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+/**
+ * JMX management interface for logging: level control and the counters of {@link LoggingStats}.
+ * Registered as {@value LoggingSystem#MBEAN_NAME}.
+ *
+ * @see LoggingSystem#registerMBean()
+ */
+public interface LoggingSystemMXBean {
+    /** The display name of the logging setup in use. */
+    String getLoggingSetup();
+
+    /** Where the configuration came from, or null if not known. */
+    String getConfigSource();
+
+    /** The level in effect for a logger ("" for the root logger). */
+    String getLevel(String logger);
+
+    /** Set the level of a logger. */
+    void setLevel(String logger, String level);
+
+    /**
+     * Set the levels of several loggers, given as "logger=level" pairs separated by
+     * commas or newlines.
+     */
+    void updateLevels(String levels);
+
+    long getTraceEvents();
+    long getDebugEvents();
+    long getInfoEvents();
+    long getWarnEvents();
+    long getErrorEvents();
+    long getDroppedEvents();
+    long getBytesWritten();
+
+    /** Total time logging threads spent blocked writing console output, in milliseconds. */
+    long getWriteStallMillis();
+
+    /** Longest single write of console output, in milliseconds. */
+    long getLongestWriteStallMillis();
+
+    /** Reset the counters. */
+    void resetStatistics();
+}
@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.dev;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+import logging.LatencyHistogram;
+import logging.Log;
+import logging.LogCtl;
+import logging.LogFmt;
+import logging.LogLevel;
+import logging.LoggingSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Load generator: drive threads through {@link LogFmt} or {@link Log} against the
+ * logging that {@link LoggingSystem} sets up, then report throughput, call latency
+ * percentiles and garbage collections on stderr. Log output goes wherever the logging
+ * configuration sends it; redirect stdout to measure without a terminal.
+ * <pre>
+ * java -cp ... logging.dev.LoadGenerator [options] &gt; /dev/null</pre>
+ * Options:
+ * <ul>
+ * <li>{@code --threads N} -- number of threads (default 4)</li>
+ * <li>{@code --virtual} -- use virtual threads (Java 21 and later)</li>
+ * <li>{@code --duration S} -- seconds measured (default 10), after {@code --warmup S} (default 2)</li>
+ * <li>{@code --mix level=weight,...} -- the mix of levels (default {@code debug=10,info=80,warn=8,error=2})</li>
+ * <li>{@code --size N} -- characters of message text (default 100)</li>
+ * <li>{@code --exceptions F} -- fraction of events with an exception (default 0)</li>
+ * <li>{@code --mdc F} -- fraction of events with MDC entries set (default 0)</li>
+ * <li>{@code --loggers N} -- number of distinct loggers for {@code --api fmt} (default 1)</li>
+ * <li>{@code --api fmt|log} -- call {@link LogFmt} (default) or {@link Log}</li>
+ * </ul>
+ * Latency is the time of each logging call on the calling thread. With {@code --api log},
+ * calls are {@code Log.xxx(Class, ...)} for one logger; {@link Log} has no trace or error
+ * calls so trace is sent as debug and error as {@code fatal}.
+ */
+public class LoadGenerator {
+
+    private static void usage(String msg) {
+        if ( msg != null )
+            System.err.println(msg);
+        System.err.println("Usage: LoadGenerator [--threads N] [--virtual] [--duration S] [--warmup S] [--mix level=weight,...]");
+        System.err.println("                     [--size N] [--exceptions F] [--mdc F] [--loggers N] [--api fmt|log]");
+        System.exit(1);
+    }
+
+    // Settings
+    private int threads = 4;
+    private boolean virtual = false;
+    private double durationSeconds = 10;
+    private double warmupSeconds = 2;
+    private String mix = "debug=10,info=80,warn=8,error=2";
+    private int size = 100;
+    private double exceptions = 0;
+    private double mdc = 0;
+    private int loggers = 1;
+    private boolean useLog = false;
+
+    // Derived
+    private LogLevel[] levels;
+    private int[] cumulativeWeights;
+    private Logger[] slf4jLoggers;
+    private String padding;
+    private final Throwable exception = new RuntimeException("LoadGenerator exception");
+
+    private volatile boolean measuring = false;
+    private volatile boolean running = true;
+
+    public static void main(String... args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        generator.parseArgs(args);
+        generator.run();
+    }
+
+    private void parseArgs(String... args) {
+        for ( int i = 0 ; i < args.length ; i++ ) {
+            String a = args[i];
+            if ( a.equals("--virtual") ) {
+                virtual = true;
+                continue;
+            }
+            if ( i+1 >= args.length )
+                usage("Missing value or unknown option: "+a);
+            String v = args[++i];
+            try {
+                switch (a) {
+                    case "--threads":    threads = Integer.parseInt(v); break;
+                    case "--duration":   durationSeconds = Double.parseDouble(v); break;
+                    case "--warmup":     warmupSeconds = Double.parseDouble(v); break;
+                    case "--mix":        mix = v; break;
+                    case "--size":       size = Integer.parseInt(v); break;
+                    case "--exceptions": exceptions = Double.parseDouble(v); break;
+                    case "--mdc":        mdc = Double.parseDouble(v); break;
+                    case "--loggers":    loggers = Integer.parseInt(v); break;
+                    case "--api":
+                        if ( !v.equals("fmt") && !v.equals("log") )
+                            usage("--api is 'fmt' or 'log': "+v);
+                        useLog = v.equals("log");
+                        break;
+                    default:
+                        usage("Unknown option: "+a);
+                }
+            } catch (NumberFormatException ex) {
+                usage("Bad number for "+a+": "+v);
+            }
+        }
+        if ( threads < 1 || loggers < 1 || size < 0 )
+            usage("--threads and --loggers must be at least 1, --size at least 0");
+        parseMix(mix);
+    }
+
+    private void parseMix(String spec) {
+        List<LogLevel> x = new ArrayList<>();
+        List<Integer> w = new ArrayList<>();
+        for ( String entry : spec.split(",") ) {
+            String[] kv = entry.trim().split("=");
+            LogLevel level = kv.length == 2 ? LogLevel.parse(kv[0].trim()) : null;
+            if ( level == null || level == LogLevel.ALL || level == LogLevel.OFF )
+                usage("Bad --mix entry: "+entry);
+            int weight = 0;
+            try {
+                weight = Integer.parseInt(kv[1].trim());
+            } catch (NumberFormatException ex) {
+                usage("Bad weight in --mix entry: "+entry);
+            }
+            if ( weight <= 0 )
+                continue;
+            x.add(level);
+            w.add(weight);
+        }
+        if ( x.isEmpty() )
+            usage("No levels in --mix: "+spec);
+        levels = x.toArray(new LogLevel[0]);
+        cumulativeWeights = new int[w.size()];
+        int total = 0;
+        for ( int i = 0 ; i < w.size() ; i++ ) {
+            total += w.get(i);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    private void run() throws Exception {
+        LogCtl.setLogging();
+        slf4jLoggers = new Logger[loggers];
+        for ( int i = 0 ; i < loggers ; i++ )
+            slf4jLoggers[i] = LoggerFactory.getLogger("logging.load.L"+i);
+        padding = "x".repeat(size);
+
+        ThreadFactory factory = virtual ? virtualThreadFactory() : Thread::new;
+        Worker[] workers = new Worker[threads];
+        Thread[] running = new Thread[threads];
+        for ( int i = 0 ; i < threads ; i++ ) {
+            workers[i] = new Worker(i);
+            running[i] = factory.newThread(workers[i]);
+            running[i].start();
+        }
+
+        Thread.sleep((long)(warmupSeconds*1000));
+        long gcCount0 = gcCount();
+        long gcTime0 = gcTime();
+        long start = System.nanoTime();
+        measuring = true;
+        Thread.sleep((long)(durationSeconds*1000));
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        long gcCount1 = gcCount();
+        long gcTime1 = gcTime();
+        this.running = false;
+        for ( Thread t : running )
+            t.join();
+
+        LatencyHistogram latency = new LatencyHistogram("calls");
+        long events = 0;
+        long[] perLevel = new long[levels.length];
+        for ( Worker w : workers ) {
+            latency.add(w.latency);
+            events += w.events;
+            for ( int i = 0 ; i < levels.length ; i++ )
+                perLevel[i] += w.perLevel[i];
+        }
+        System.out.flush();
+        report(elapsed, events, perLevel, latency, gcCount1-gcCount0, gcTime1-gcTime0);
+    }
+
+    private void report(long elapsed, long events, long[] perLevel, LatencyHistogram latency, long gcCount, long gcTime) {
+        double seconds = elapsed/1e9;
+        System.err.printf("LoadGenerator: setup=%s threads=%d (%s) api=%s size=%d exceptions=%.2f mdc=%.2f loggers=%d%n",
+                          LoggingSystem.config().getDisplayName(), threads, virtual ? "virtual" : "platform",
+                          useLog ? "log" : "fmt", size, exceptions, mdc, loggers);
+        System.err.printf("  duration   %.2fs (after %.1fs warmup)%n", seconds, warmupSeconds);
+        System.err.printf("  events     %d  %.0f/s  %.0f/s per thread%n", events, events/seconds, events/seconds/threads);
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < levels.length ; i++ )
+            sb.append(String.format(" %s=%d", levels[i].name().toLowerCase(Locale.ROOT), perLevel[i]));
+        System.err.printf("  levels    %s%n", sb);
+        System.err.printf("  latency    p50=%.1fus p90=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                          latency.percentile(50)/1e3, latency.percentile(90)/1e3, latency.percentile(99)/1e3,
+                          latency.percentile(99.9)/1e3, latency.max()/1e3);
+        System.err.printf("  gc         count=%d time=%dms (%.1f%% of elapsed)%n", gcCount, gcTime, 100.0*gcTime/(seconds*1000));
+    }
+
+    private class Worker implements Runnable {
+        final int id;
+        final LatencyHistogram latency = new LatencyHistogram("worker");
+        final long[] perLevel = new long[levels.length];
+        long events = 0;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long seq = 0;
+            while ( running ) {
+                int idx = pick(random.nextInt(cumulativeWeights[cumulativeWeights.length-1]));
+                LogLevel level = levels[idx];
+                Logger log = slf4jLoggers[(int)(seq % loggers)];
+                Throwable th = ( exceptions > 0 && random.nextDouble() < exceptions ) ? exception : null;
+                boolean withMDC = mdc > 0 && random.nextDouble() < mdc;
+                if ( withMDC ) {
+                    MDC.put("worker", Integer.toString(id));
+                    MDC.put("seq", Long.toString(seq));
+                }
+                long start = System.nanoTime();
+                if ( useLog )
+                    callLog(level, th);
+                else
+                    callLogFmt(log, level, th, seq);
+                long duration = System.nanoTime() - start;
+                if ( withMDC ) {
+                    MDC.remove("worker");
+                    MDC.remove("seq");
+                }
+                if ( measuring ) {
+                    latency.record(duration);
+                    perLevel[idx]++;
+                    events++;
+                }
+                seq++;
+            }
+        }
+    }
+
+    private int pick(int r) {
+        for ( int i = 0 ; i < cumulativeWeights.length ; i++ ) {
+            if ( r < cumulativeWeights[i] )
+                return i;
+        }
+        return cumulativeWeights.length-1;
+    }
+
+    private void callLogFmt(Logger log, LogLevel level, Throwable th, long seq) {
+        switch (level) {
+            case TRACE: LogFmt.trace(log, th, "Event %d %s", seq, padding); break;
+            case DEBUG: LogFmt.debug(log, th, "Event %d %s", seq, padding); break;
+            case INFO:  LogFmt.info(log, th, "Event %d %s", seq, padding); break;
+            case WARN:  LogFmt.warn(log, th, "Event %d %s", seq, padding); break;
+            default:    LogFmt.error(log, th, "Event %d %s", seq, padding); break;
+        }
+    }
+
+    // Log has no error; fatal is the same as error.
+    @SuppressWarnings("deprecation")
+    private void callLog(LogLevel level, Throwable th) {
+        Class<?> cls = LoadGenerator.class;
+        switch (level) {
+            case TRACE:
+            case DEBUG:
+                if ( th == null ) Log.debug(cls, padding); else Log.debug(cls, padding, th);
+                break;
+            case INFO:
+                if ( th == null ) Log.info(cls, padding); else Log.info(cls, padding, th);
+                break;
+            case WARN:
+                if ( th == null ) Log.warn(cls, padding); else Log.warn(cls, padding, th);
+                break;
+            default:
+                if ( th == null ) Log.fatal(cls, padding); else Log.fatal(cls, padding, th);
+                break;
+        }
+    }
+
+    /** Thread.ofVirtual().factory(), by reflection as this code is compiled for Java 17. */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory)factory.invoke(builder);
+        } catch (NoSuchMethodException | ClassNotFoundException ex) {
+            usage("Virtual threads need Java 21 or later");
+            return null;
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to create a virtual thread factory", ex);
+        }
+    }
+
+    private static long gcCount() {
+        long x = 0;
+        for ( GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans() )
+            x += Math.max(0, gc.getCollectionCount());
+        return x;
+    }
+
+    private static long gcTime() {
+        long x = 0;
+        for ( GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans() )
+            x += Math.max(0, gc.getCollectionTime());
+        return x;
+    }
+}
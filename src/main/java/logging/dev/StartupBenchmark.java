@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.dev;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import logging.LoggingDefaults;
+import logging.LoggingSystem;
+
+/**
+ * Startup time of logging: for each backend and each way of finding the configuration,
+ * run {@link StartupProbe} in fresh JVMs and report, as CSV, the time from {@code main}
+ * to the first log line emitted, the classes loaded and the bytes allocated.
+ * <p>
+ * The classpath of each run is made from the classpath of this program: the backend's
+ * jars first (slf4j uses the first provider it finds), then everything that is not a
+ * backend jar. A backend whose jars are not on the classpath is skipped; for JUL,
+ * add {@code slf4j-jdk14} to the classpath.
+ * <p>
+ * Setup paths (JUL and Log4j2, which have configuration files):
+ * <ul>
+ * <li>{@code file} -- the configuration file in the current directory.</li>
+ * <li>{@code classpath} -- the configuration as a classpath resource.</li>
+ * <li>{@code pathBase} -- the configuration as a classpath resource under {@link LoggingSystem#getPathBase()}.</li>
+ * <li>{@code default} -- no configuration file; the built-in default.</li>
+ * </ul>
+ * slf4j-simple has no setup so only runs {@code default}.
+ * <pre>
+ * java -cp ... logging.dev.StartupBenchmark [--runs N] [--warmup N] [--out FILE] [backend...]</pre>
+ * Backends are "jul", "log4j2" and "simple" (default: all). The "selected" column
+ * is the {@code LoggingSetup} that {@link LoggingSystem} chose in the probe.
+ * The classes loaded and bytes allocated are medians and include the probe's own measurement.
+ */
+public class StartupBenchmark {
+
+    enum Backend {
+        JUL("jul", "logging.properties", LoggingDefaults.defaultJUL,
+            jar -> jar.startsWith("slf4j-jdk14")),
+        LOG4J2("log4j2", "log4j2.xml", LoggingDefaults.defaultLog4j2_xml,
+               jar -> jar.startsWith("log4j-api") || jar.startsWith("log4j-core") || jar.startsWith("log4j-slf4j")),
+        SIMPLE("simple", null, null,
+               jar -> jar.startsWith("slf4j-simple"));
+
+        final String name;
+        final String configFile;
+        final String config;
+        final Predicate<String> jars;
+
+        Backend(String name, String configFile, String config, Predicate<String> jars) {
+            this.name = name;
+            this.configFile = configFile;
+            this.config = config;
+            this.jars = jars;
+        }
+    }
+
+    enum SetupPath { FILE("file"), CLASSPATH("classpath"), PATHBASE("pathBase"), DEFAULT("default");
+        final String name;
+        SetupPath(String name) { this.name = name; }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: StartupBenchmark [--runs N] [--warmup N] [--out FILE] [jul|log4j2|simple ...]");
+        System.exit(1);
+    }
+
+    public static void main(String... args) throws Exception {
+        int runs = 10;
+        int warmup = 1;
+        String outFile = null;
+        List<Backend> backends = new ArrayList<>();
+        for ( int i = 0 ; i < args.length ; i++ ) {
+            String a = args[i];
+            if ( a.equals("--runs") && i+1 < args.length )
+                runs = Integer.parseInt(args[++i]);
+            else if ( a.equals("--warmup") && i+1 < args.length )
+                warmup = Integer.parseInt(args[++i]);
+            else if ( a.equals("--out") && i+1 < args.length )
+                outFile = args[++i];
+            else {
+                Backend b = Arrays.stream(Backend.values()).filter(x->x.name.equalsIgnoreCase(a)).findFirst().orElse(null);
+                if ( b == null )
+                    usage();
+                backends.add(b);
+            }
+        }
+        if ( backends.isEmpty() )
+            backends.addAll(Arrays.asList(Backend.values()));
+
+        List<String> classpath = Arrays.asList(System.getProperty("java.class.path").split(File.pathSeparator));
+        PrintStream out = ( outFile == null ) ? System.out
+                : new PrintStream(new FileOutputStream(outFile), true, StandardCharsets.UTF_8);
+        out.println("backend,setup,selected,runs,p50_ms,p90_ms,p99_ms,max_ms,classes,alloc_bytes");
+        for ( Backend backend : backends ) {
+            List<String> backendJars = jars(classpath, backend.jars);
+            if ( backendJars.isEmpty() ) {
+                System.err.printf("Skip %s: no jars on the classpath%n", backend.name);
+                continue;
+            }
+            List<String> others = jars(classpath, jar -> !isBackendJar(jar));
+            for ( SetupPath setupPath : SetupPath.values() ) {
+                if ( backend.configFile == null && setupPath != SetupPath.DEFAULT )
+                    continue;
+                Result result = run(backend, setupPath, backendJars, others, warmup, runs);
+                if ( result != null )
+                    out.println(result.csv(backend, setupPath));
+            }
+        }
+        if ( out != System.out )
+            out.close();
+    }
+
+    private static boolean isBackendJar(String jar) {
+        for ( Backend b : Backend.values() ) {
+            if ( b.jars.test(jar) )
+                return true;
+        }
+        return false;
+    }
+
+    /** Classpath entries whose file name matches. */
+    private static List<String> jars(List<String> classpath, Predicate<String> test) {
+        List<String> x = new ArrayList<>();
+        for ( String entry : classpath ) {
+            Path fn = Paths.get(entry).getFileName();
+            // Absolute: the probe runs in another directory.
+            if ( fn != null && test.test(fn.toString()) )
+                x.add(Paths.get(entry).toAbsolutePath().toString());
+        }
+        return x;
+    }
+
+    private static class Result {
+        final long[] nanos;
+        final long classes;
+        final long allocated;
+        final String selected;
+
+        Result(long[] nanos, long classes, long allocated, String selected) {
+            this.nanos = nanos;
+            this.classes = classes;
+            this.allocated = allocated;
+            this.selected = selected;
+        }
+
+        String csv(Backend backend, SetupPath setupPath) {
+            return String.format(Locale.ROOT, "%s,%s,%s,%d,%.2f,%.2f,%.2f,%.2f,%d,%d",
+                                 backend.name, setupPath.name, selected, nanos.length,
+                                 percentile(nanos, 50)/1e6, percentile(nanos, 90)/1e6, percentile(nanos, 99)/1e6,
+                                 nanos[nanos.length-1]/1e6, classes, allocated);
+        }
+    }
+
+    /** Nearest rank percentile of sorted values. */
+    private static long percentile(long[] sorted, int p) {
+        int idx = (int)Math.ceil(p/100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, idx)];
+    }
+
+    private static long median(long[] values) {
+        long[] x = values.clone();
+        Arrays.sort(x);
+        return x[x.length/2];
+    }
+
+    private static Result run(Backend backend, SetupPath setupPath, List<String> backendJars, List<String> others,
+                              int warmup, int runs) throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("logging-startup");
+        try {
+            Path workDir = Files.createDirectory(dir.resolve("work"));
+            Path resources = Files.createDirectory(dir.resolve("resources"));
+            if ( backend.configFile != null ) {
+                switch (setupPath) {
+                    case FILE:
+                        write(workDir.resolve(backend.configFile), backend.config);
+                        break;
+                    case CLASSPATH:
+                        write(resources.resolve(backend.configFile), backend.config);
+                        break;
+                    case PATHBASE:
+                        write(resources.resolve(LoggingSystem.getPathBase()).resolve(backend.configFile), backend.config);
+                        break;
+                    case DEFAULT:
+                        break;
+                }
+            }
+            List<String> cp = new ArrayList<>(backendJars);
+            cp.add(resources.toString());
+            cp.addAll(others);
+            String classpath = String.join(File.pathSeparator, cp);
+
+            for ( int i = 0 ; i < warmup ; i++ ) {
+                if ( runOnce(classpath, workDir) == null )
+                    return null;
+            }
+            String selected = null;
+            long[] nanos = new long[runs];
+            long[] classes = new long[runs];
+            long[] allocated = new long[runs];
+            for ( int i = 0 ; i < runs ; i++ ) {
+                String[] x = runOnce(classpath, workDir);
+                if ( x == null )
+                    return null;
+                nanos[i] = Long.parseLong(x[1]);
+                classes[i] = Long.parseLong(x[2]);
+                allocated[i] = Long.parseLong(x[3]);
+                selected = x[4];
+            }
+            Arrays.sort(nanos);
+            return new Result(nanos, median(classes), median(allocated), selected);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /** Run the probe; return the fields of its result line or null on failure. */
+    private static String[] runOnce(String classpath, Path workDir) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder pb = new ProcessBuilder(java, "-cp", classpath, StartupProbe.class.getName())
+                .directory(workDir.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        Process process = pb.start();
+        String[] result = null;
+        List<String> lines = new ArrayList<>();
+        try ( BufferedReader in = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8)) ) {
+            String line;
+            while ( (line = in.readLine()) != null ) {
+                if ( line.startsWith(StartupProbe.RESULT+" ") )
+                    result = line.split(" ");
+                else
+                    lines.add(line);
+            }
+        }
+        int rc = process.waitFor();
+        if ( rc != 0 || result == null ) {
+            System.err.printf("Probe failed (exit %d)%n", rc);
+            lines.forEach(System.err::println);
+            return null;
+        }
+        return result;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try ( Stream<Path> paths = Files.walk(dir) ) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.dev;
+
+import java.lang.management.ManagementFactory;
+
+import logging.LogCtl;
+import logging.LoggingSystem;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The program run by {@link StartupBenchmark} in each fresh JVM: set up logging
+ * and emit one log line, then report the time taken, the number of classes loaded,
+ * the bytes allocated by the main thread and the logging setup chosen on stderr.
+ */
+public class StartupProbe {
+    /** Prefix of the result line. */
+    static final String RESULT = "#startup";
+
+    public static void main(String... args) {
+        long start = System.nanoTime();
+        LogCtl.setLogging();
+        LoggerFactory.getLogger(StartupProbe.class).info("Startup");
+        long duration = System.nanoTime() - start;
+
+        // After the measurement: these load classes of their own.
+        long classes = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        long allocated = -1;
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if ( threads instanceof com.sun.management.ThreadMXBean )
+            allocated = ((com.sun.management.ThreadMXBean)threads).getCurrentThreadAllocatedBytes();
+        System.out.flush();
+        String setup = LoggingSystem.config().getDisplayName().replace(' ', '_');
+        System.err.printf("%s %d %d %d %s%n", RESULT, duration, classes, allocated, setup);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A handler writing out its buffered output. */
+@Name("logging.HandlerFlush")
+@Label("Log Handler Flush")
+@Category("Logging")
+@Description("A log handler writing out buffered output")
+public final class HandlerFlush extends Event implements JfrEvents.Timing {
+    @Label("Handler")
+    String handler;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    /** Start timing a flush; call {@link #finish} when it is done. */
+    static HandlerFlush start(String handler) {
+        HandlerFlush event = new HandlerFlush();
+        event.handler = handler;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void finish(long bytes) {
+        this.bytes = bytes;
+        commit();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jfr;
+
+/**
+ * The logging JFR events, for code that runs whether or not JFR is available.
+ * <p>
+ * All use of the events goes through this class. If the {@code jdk.jfr} module is
+ * not in the runtime, or no flight recording has been started, nothing from
+ * {@code jdk.jfr} is loaded and the calls do nothing.
+ */
+public final class JfrEvents {
+    private JfrEvents() {}
+
+    /** A setup phase being timed. */
+    public interface Phase {
+        /** End the phase and record the event. */
+        void finish(String detail);
+    }
+
+    /** An output operation being timed. */
+    public interface Timing {
+        /** End the operation and record the event, if it is recorded. */
+        void finish(long bytes);
+    }
+
+    private static final boolean available = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private static final Phase noPhase = detail -> {};
+    private static final Timing noTiming = bytes -> {};
+
+    /** Whether JFR is available and recording has been started. */
+    private static boolean active() {
+        return available && Recorder.isActive();
+    }
+
+    /** Start timing a step of logging setup. */
+    public static Phase setupPhase(String phase, String setup) {
+        if ( !active() )
+            return noPhase;
+        return Recorder.setupPhase(phase, setup);
+    }
+
+    /** Start timing a write of log output; recorded if it blocks for longer than the threshold. */
+    public static Timing writeStall(String handler) {
+        if ( !active() )
+            return noTiming;
+        return Recorder.writeStall(handler);
+    }
+
+    /** Start timing a handler writing out its buffered output. */
+    public static Timing handlerFlush(String handler) {
+        if ( !active() )
+            return noTiming;
+        return Recorder.handlerFlush(handler);
+    }
+
+    /** Record that {@code count} log records were dropped by {@code source}. */
+    public static void recordsDropped(String source, long count) {
+        if ( !active() )
+            return;
+        Recorder.recordsDropped(source, count);
+    }
+
+    /** The calls that link to {@code jdk.jfr}; only loaded when it is available. */
+    private static final class Recorder {
+        static boolean isActive() {
+            return jdk.jfr.FlightRecorder.isInitialized();
+        }
+
+        static Phase setupPhase(String phase, String setup) {
+            if ( !Types.setupPhase.isEnabled() )
+                return noPhase;
+            return LoggingSetupPhase.start(phase, setup);
+        }
+
+        static Timing writeStall(String handler) {
+            if ( !Types.writeStall.isEnabled() )
+                return noTiming;
+            return LogWriteStall.start(handler);
+        }
+
+        static Timing handlerFlush(String handler) {
+            if ( !Types.handlerFlush.isEnabled() )
+                return noTiming;
+            return HandlerFlush.start(handler);
+        }
+
+        static void recordsDropped(String source, long count) {
+            if ( Types.recordsDropped.isEnabled() )
+                LogRecordsDropped.emit(source, count);
+        }
+    }
+
+    /** Event types, registered once recording has started. */
+    private static final class Types {
+        static final jdk.jfr.EventType setupPhase = jdk.jfr.EventType.getEventType(LoggingSetupPhase.class);
+        static final jdk.jfr.EventType writeStall = jdk.jfr.EventType.getEventType(LogWriteStall.class);
+        static final jdk.jfr.EventType handlerFlush = jdk.jfr.EventType.getEventType(HandlerFlush.class);
+        static final jdk.jfr.EventType recordsDropped = jdk.jfr.EventType.getEventType(LogRecordsDropped.class);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Log records discarded, for example because a queue was full. */
+@Name("logging.LogRecordsDropped")
+@Label("Log Records Dropped")
+@Category("Logging")
+@Description("Log records discarded without being output")
+public final class LogRecordsDropped extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Count")
+    long count;
+
+    /** Record that {@code count} records were dropped by {@code source}. */
+    static void emit(String source, long count) {
+        LogRecordsDropped event = new LogRecordsDropped();
+        event.source = source;
+        event.count = count;
+        event.commit();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A write of log output that blocked the logging thread, including waiting for the
+ * output lock, for longer than the threshold (default 20ms, set in the JFR settings).
+ */
+@Name("logging.LogWriteStall")
+@Label("Log Write Stall")
+@Category("Logging")
+@Description("A write of log output that blocked the logging thread")
+@Threshold("20 ms")
+public final class LogWriteStall extends Event implements JfrEvents.Timing {
+    @Label("Handler")
+    String handler;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    /** Start timing a write; call {@link #finish} when it is done. */
+    static LogWriteStall start(String handler) {
+        LogWriteStall event = new LogWriteStall();
+        event.handler = handler;
+        event.begin();
+        return event;
+    }
+
+    /** Record the event if it took longer than the threshold. */
+    @Override
+    public void finish(long bytes) {
+        end();
+        if ( shouldCommit() ) {
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A step of logging setup: provider discovery, finding the configuration, or applying it. */
+@Name("logging.LoggingSetupPhase")
+@Label("Logging Setup Phase")
+@Category("Logging")
+@Description("A step of logging setup")
+public final class LoggingSetupPhase extends Event implements JfrEvents.Phase {
+    @Label("Phase")
+    String phase;
+
+    @Label("Setup")
+    String setup;
+
+    @Label("Detail")
+    @Description("The configuration source or other detail of the phase")
+    String detail;
+
+    /** Start timing a phase; call {@link #finish} when it is done. */
+    static LoggingSetupPhase start(String phase, String setup) {
+        LoggingSetupPhase event = new LoggingSetupPhase();
+        event.phase = phase;
+        event.setup = setup;
+        event.begin();
+        return event;
+    }
+
+    /** End the phase and record the event. */
+    @Override
+    public void finish(String detail) {
+        this.detail = detail;
+        commit();
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.*;
+
+import logging.LoggingStats;
+import logging.jfr.JfrEvents;
+
+/**
+ * Handler that passes records to another handler on a separate thread.
+ * <p>
+ * The calling thread infers the caller information and takes a copy of the record
+ * parameters, then puts the record on a bounded queue. A daemon thread takes records
+ * off the queue in batches, calls the target handler's {@code publish} for each record
+ * and calls {@code flush} once per batch.
+ * <p>
+ * Configuration:
+ * <ul>
+ * <li>{@code .target} -- class name of the handler to use (default {@link ConsoleHandlerStream})</li>
+ * <li>{@code .capacity} -- queue size (default 8192)</li>
+ * <li>{@code .overflow} -- what to do when the queue is full: {@code BLOCK} (default),
+ *     {@code DISCARD} (drop the new record) or {@code DISCARD_OLDEST}</li>
+ * <li>{@code .batch} -- maximum records per batch (default 256)</li>
+ * <li>{@code .level} -- as for any handler</li>
+ * </ul>
+ * Example:
+ * <pre>
+ * handlers=logging.jul.AsyncHandler
+ * logging.jul.AsyncHandler.target=logging.jul.ConsoleHandlerStream
+ * logging.jul.AsyncHandler.capacity=10000
+ * logging.jul.AsyncHandler.overflow=DISCARD</pre>
+ * The target handler is configured as usual by its own properties.
+ * Note that the target formats on the handler thread so a format using the thread
+ * name ({@code %4$s} in {@link TextFormatter}) shows the handler thread.
+ */
+public class AsyncHandler extends Handler {
+
+    /** Policy for when the queue is full. */
+    public enum Overflow { BLOCK, DISCARD, DISCARD_OLDEST }
+
+    private static final int dftCapacity = 8192;
+    private static final int dftBatch = 256;
+
+    // Marks the end of the queue.
+    private static final LogRecord END = new LogRecord(Level.OFF, "END");
+
+    private final Handler target;
+    private final Overflow overflow;
+    private final int batchSize;
+    private final BlockingQueue<LogRecord> queue;
+    private final Thread worker;
+    private final LongAdder dropped = new LongAdder();
+    // Drops not yet reported as a JFR event; reported by the handler thread after each batch.
+    private final LongAdder unreported = new LongAdder();
+    private volatile boolean closed = false;
+    // Set when close() has given up waiting: the handler thread drops what it holds.
+    private volatile boolean stopping = false;
+
+    public AsyncHandler() {
+        HandlerConfig config = new HandlerConfig(getClass());
+
+        this.target = createTarget(config.get("target"));
+        this.queue = new ArrayBlockingQueue<>(config.getInt("capacity", dftCapacity));
+        this.batchSize = config.getInt("batch", dftBatch);
+
+        Overflow policy = Overflow.BLOCK;
+        String pOverflow = config.get("overflow");
+        if ( pOverflow != null ) {
+            try { policy = Overflow.valueOf(pOverflow.trim().toUpperCase()); }
+            catch (IllegalArgumentException ex) {
+                System.err.println("AsyncHandler: unrecognized overflow policy: "+pOverflow);
+            }
+        }
+        this.overflow = policy;
+
+        String pLevel = config.get("level");
+        if ( pLevel != null )
+            setLevel(Level.parse(pLevel));
+        this.worker = start();
+    }
+
+    /** Programmatic setup. */
+    public AsyncHandler(Handler target, int capacity, Overflow overflow) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflow = overflow;
+        this.batchSize = dftBatch;
+        this.worker = start();
+    }
+
+    private Thread start() {
+        Thread thread = new Thread(this::run, "AsyncHandler-"+target.getClass().getSimpleName());
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /** The handler that records are passed to. */
+    public Handler getTarget() {
+        return target;
+    }
+
+    private void drop(long count) {
+        dropped.add(count);
+        unreported.add(count);
+        LoggingStats.dropped(count);
+    }
+
+    // One JFR event for the drops since the last report.
+    private void reportDrops() {
+        long count = unreported.sumThenReset();
+        if ( count > 0 )
+            JfrEvents.recordsDropped(getClass().getSimpleName(), count);
+    }
+
+    /** Number of records dropped because the queue was full or the handler closed. */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if ( !isLoggable(record) )
+            return;
+        // Don't queue records the target would ignore.
+        if ( record.getLevel().intValue() < target.getLevel().intValue() )
+            return;
+        if ( closed ) {
+            drop(1);
+            return;
+        }
+        // Caller inference walks the stack so it must happen on this thread.
+        record.getSourceClassName();
+        snapshotParameters(record);
+        enqueue(record);
+    }
+
+    private void enqueue(LogRecord record) {
+        switch (overflow) {
+            case BLOCK:
+                try { queue.put(record); }
+                catch (InterruptedException ex) {
+                    drop(1);
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            case DISCARD:
+                if ( !queue.offer(record) )
+                    drop(1);
+                return;
+            case DISCARD_OLDEST:
+                while ( !queue.offer(record) ) {
+                    // After close, the queue may hold END, which must not be discarded.
+                    if ( closed ) {
+                        drop(1);
+                        return;
+                    }
+                    if ( queue.poll() != null )
+                        drop(1);
+                }
+                return;
+        }
+    }
+
+    /** Parameters are formatted later; replace any that may change by their string form. */
+    private static void snapshotParameters(LogRecord record) {
+        Object[] params = record.getParameters();
+        if ( params == null || params.length == 0 )
+            return;
+        Object[] copy = new Object[params.length];
+        for ( int i = 0 ; i < params.length ; i++ ) {
+            Object obj = params[i];
+            if ( obj == null || obj instanceof String || obj instanceof Number || obj instanceof Boolean
+                 || obj instanceof Character || obj instanceof Enum<?> )
+                copy[i] = obj;
+            else if ( obj instanceof Date )
+                copy[i] = ((Date)obj).clone();
+            else
+                copy[i] = String.valueOf(obj);
+        }
+        record.setParameters(copy);
+    }
+
+    private void run() {
+        List<LogRecord> batch = new ArrayList<>(batchSize);
+        boolean finished = false;
+        while ( !finished && !stopping ) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            for ( int i = 0 ; i < batch.size() ; i++ ) {
+                LogRecord record = batch.get(i);
+                if ( record == END ) {
+                    finished = true;
+                    break;
+                }
+                if ( stopping ) {
+                    dropRemaining(batch, i);
+                    finished = true;
+                    break;
+                }
+                try {
+                    target.publish(record);
+                } catch (RuntimeException ex) {
+                    reportError(null, ex, ErrorManager.WRITE_FAILURE);
+                }
+            }
+            batch.clear();
+            target.flush();
+            reportDrops();
+            // If END could not be queued, stop when the queue is empty.
+            if ( closed && queue.isEmpty() )
+                finished = true;
+        }
+    }
+
+    // Count the records of the batch, from index start, as dropped.
+    private void dropRemaining(List<LogRecord> batch, int start) {
+        long count = 0;
+        for ( int i = start ; i < batch.size() ; i++ ) {
+            if ( batch.get(i) != END )
+                count++;
+        }
+        drop(count);
+    }
+
+    @Override
+    public void flush() {
+        target.flush();
+    }
+
+    /**
+     * Write out queued records, stop the handler thread and close the target.
+     * Waits at most 10 seconds for the handler thread, in case the target is stuck; then
+     * the handler thread is interrupted and drops the records it holds. If it still
+     * does not stop, the target is left open because it is still in use.
+     */
+    @Override
+    public void close() throws SecurityException {
+        if ( closed )
+            return;
+        closed = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        try {
+            // The handler thread also stops when it finds the queue empty after close,
+            // so only wait for space while it is running.
+            while ( worker.isAlive() && System.nanoTime() < deadline ) {
+                if ( queue.offer(END, 100, TimeUnit.MILLISECONDS) )
+                    break;
+            }
+            long remaining = deadline - System.nanoTime();
+            if ( remaining > 0 )
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+            if ( worker.isAlive() ) {
+                stopping = true;
+                worker.interrupt();
+                worker.join(TimeUnit.SECONDS.toMillis(1));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything left (the handler thread did not finish).
+        queue.remove(END);
+        drop(queue.size());
+        queue.clear();
+        reportDrops();
+        if ( worker.isAlive() ) {
+            reportError("AsyncHandler: handler thread did not stop; target not closed", null, ErrorManager.CLOSE_FAILURE);
+            return;
+        }
+        target.close();
+    }
+
+    private static Handler createTarget(String className) {
+        if ( className != null ) {
+            try {
+                Class<?> cls = ClassLoader.getSystemClassLoader().loadClass(className.trim());
+                @SuppressWarnings("deprecation")
+                Handler handler = (Handler)cls.newInstance();
+                return handler;
+            } catch (Exception ex) {
+                System.err.println("Problems setting the AsyncHandler target: "+className);
+                ex.printStackTrace(System.err);
+            }
+        }
+        return new ConsoleHandlerStream();
+    }
+}
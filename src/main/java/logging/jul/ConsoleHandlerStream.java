@@ -21,9 +21,16 @@ package logging.jul;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.logging.*;
 
+import logging.LatencyHistogram;
+import logging.LatencyStats;
+import logging.LogLevel;
+import logging.LoggingStats;
+
 /** Console handler that modifies {@link java.util.logging.ConsoleHandler}.
  * Supports the configuration parameters of {@link ConsoleHandler} -- {@code .level},
  * {@code .filter}, {@code .formatter} and {@code .encoding}.
@@ -41,6 +48,16 @@ import java.util.logging.*;
  * <pre>
  * handlers=logging.jul.ConsoleHandlerStream
  * logging.jul.TextFormatter.format = %5$tT %3$-5s %2$-20s -- %6$s</pre>
+ * <p>
+ * Unlike {@link StreamHandler}, a record is formatted and encoded on the calling thread
+ * without holding the handler lock; only the write of the bytes is done under a lock.
+ * All output, including the formatter head and tail, goes through that lock;
+ * the {@link StreamHandler} output is not used.
+ * <p>
+ * Time blocked writing is recorded (see {@link #getStallNanos()}). To protect the
+ * application from a slow consumer of the output, set {@code .degrade.threshold} (ms):
+ * after a write slower than that, records below WARNING are dropped until
+ * {@code .degrade.cooldown} (ms, default 5000) has passed without another slow write.
  */
 public class ConsoleHandlerStream extends StreamHandler {
 
@@ -52,7 +69,7 @@ public class ConsoleHandlerStream extends StreamHandler {
     // hence going straight to StreamHandler and having to provide the functionality here.
 
     /** Don't close {@code System.err} or {@code System.out} */
-    private static OutputStream protectStdOutput(OutputStream outputStream) {
+    /* package */ static OutputStream protectStdOutput(OutputStream outputStream) {
         if ( outputStream == System.err || outputStream == System.out )
             return new CloseProtectedOutputStream(outputStream);
         return outputStream;
@@ -62,9 +79,20 @@ public class ConsoleHandlerStream extends StreamHandler {
         this(System.out);
     }
 
+    private final StreamOutput output;
+
     public ConsoleHandlerStream(OutputStream outputStream) {
+        this(protectStdOutput(outputStream), new TextFormatter());
+    }
+
+    private ConsoleHandlerStream(OutputStream outputStream, Formatter formatter) {
         // default Level.INFO
-        super(protectStdOutput(outputStream), new TextFormatter());
+        // Output is through StreamOutput, so StreamHandler, which writes the head
+        // and tail itself, has no output.
+        super(OutputStream.nullOutputStream(), formatter);
+        output = new StreamOutput(getClass().getSimpleName(), outputStream, charset(getEncoding()));
+        output.setDegrade(new HandlerConfig(getClass()));
+        output.setHead(() -> getFormatter().getHead(this));
         // Change default to all.
         // This avoid the effect of not getting sub-INFO output when no level is set.
         setLevel(Level.ALL);
@@ -131,10 +159,88 @@ public class ConsoleHandlerStream extends StreamHandler {
         return manager.getProperty(cname+pname);
     }
 
+    @Override
+    public void setEncoding(String encoding) throws SecurityException, UnsupportedEncodingException {
+        super.setEncoding(encoding);
+        // Called from the super constructor before output is set.
+        if ( output != null )
+            output.setCharset(charset(encoding));
+    }
+
+    private static Charset charset(String encoding) {
+        return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+    }
+
+    private final LatencyHistogram publishTimes = LatencyStats.handler(getClass().getSimpleName());
+
     @Override
     public void publish(LogRecord record) {
-        super.publish(record);
-        flush();
+        if ( LatencyStats.isEnabled() ) {
+            long start = System.nanoTime();
+            publish0(record);
+            publishTimes.record(System.nanoTime() - start);
+            return;
+        }
+        publish0(record);
+    }
+
+    private void publish0(LogRecord record) {
+        if ( !isLoggable(record) )
+            return;
+        if ( output.dropDegraded(record.getLevel()) )
+            return;
+        LoggingStats.event(LogLevel.fromJUL(record.getLevel()));
+        String text;
+        try {
+            text = getFormatter().format(record);
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        try {
+            output.write(text);
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            output.flush();
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    /** Give any quota summaries, write the formatter tail, then close. */
+    @Override
+    public void close() {
+        QuotaFilter quotas = QuotaFilter.find(getFilter());
+        if ( quotas != null )
+            quotas.close(this);
+        // Stops further records being logged.
+        super.close();
+        try {
+            output.close(getFormatter().getTail(this));
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    /** Total time spent blocked writing output, in nanoseconds. */
+    public long getStallNanos() {
+        return output.getStallNanos();
+    }
+
+    /** Longest single write of output, in nanoseconds. */
+    public long getLongestStallNanos() {
+        return output.getLongestStallNanos();
+    }
+
+    /** Whether records below WARNING are being dropped because output is slow. */
+    public boolean isDegraded() {
+        return output.isDegraded();
     }
 
     /** Flush but do not close on close(). */
@@ -145,6 +251,11 @@ public class ConsoleHandlerStream extends StreamHandler {
             super(out);
         }
 
+        // FilterOutputStream writes arrays a byte at a time.
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
         @Override public void close() throws IOException {
             flush();
         }
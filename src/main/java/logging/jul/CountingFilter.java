@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+import java.util.logging.Filter;
+import java.util.logging.LogRecord;
+
+import logging.EventCounters;
+import logging.LogLevel;
+
+/**
+ * Filter that counts the records a handler outputs, in {@link EventCounters}.
+ * It can wrap another filter; only records passing that filter are counted.
+ * <p>
+ * Installed on {@link ConsoleHandlerStream} by the JUL setup when counting is enabled,
+ * or configure with {@code logging.jul.ConsoleHandlerStream.filter=logging.jul.CountingFilter}.
+ */
+public class CountingFilter implements Filter {
+    private final Filter filter;
+
+    public CountingFilter() {
+        this(null);
+    }
+
+    public CountingFilter(Filter filter) {
+        this.filter = filter;
+    }
+
+    /** The wrapped filter, or null. */
+    public Filter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public boolean isLoggable(LogRecord record) {
+        if ( filter != null && !filter.isLoggable(record) )
+            return false;
+        EventCounters.emitted(record.getLoggerName(), LogLevel.fromJUL(record.getLevel()));
+        return true;
+    }
+}
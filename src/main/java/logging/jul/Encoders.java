@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+/**
+ * The encoders used by {@link StreamOutput}: one per thread, kept in a {@link ThreadLocal}.
+ * <p>
+ * There is a Java 21 version of this class in {@code src/main/java21}, used from the
+ * multi-release jar, that does not keep encoders per virtual thread.
+ */
+final class Encoders {
+    private Encoders() {}
+
+    private static final ThreadLocal<StreamOutput.Encoder> encoders = ThreadLocal.withInitial(StreamOutput.Encoder::new);
+
+    static StreamOutput.Encoder acquire() {
+        return encoders.get();
+    }
+
+    static void release(StreamOutput.Encoder encoder) {
+        encoder.release();
+    }
+}
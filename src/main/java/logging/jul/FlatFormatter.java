@@ -18,7 +18,6 @@
 
 package logging.jul;
 
-import java.text.MessageFormat;
 import java.util.logging.Formatter;
 import java.util.logging.LogRecord;
 
@@ -37,9 +36,7 @@ public class FlatFormatter extends Formatter {
 
     @Override
     public String format(LogRecord record) {
-        String message = record.getMessage();
-        if ( record.getParameters() != null )
-            message = MessageFormat.format(message, record.getParameters());
+        String message = MessageFormats.format(record.getMessage(), record.getParameters());
         if ( ensureNL && ! message.endsWith("\n") )
             message = message + "\n";
         return message;
@@ -18,9 +18,18 @@
 
 package logging.jul;
 
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.logging.ErrorManager;
 import java.util.logging.LogRecord;
 import java.util.logging.StreamHandler;
 
+import logging.LatencyHistogram;
+import logging.LatencyStats;
+import logging.LogLevel;
+import logging.LoggingStats;
+
 /** A handler and formatter for unadorned output to stdout.
  * Example: NCSA Format logging in Fuseki already formats the whole line
  *
@@ -29,17 +38,102 @@ import java.util.logging.StreamHandler;
  * org.apache.jena.fuseki.Request.useParentHandlers=false
  * org.apache.jena.fuseki.Request.handlers=logging.FlatHandler
  * </pre>
+ * Output is written as for {@link ConsoleHandlerStream}, including the
+ * {@code .degrade.threshold} and {@code .degrade.cooldown} settings.
  * @see FlatFormatter
  */
 public class FlatHandler extends StreamHandler {
 
+    private final StreamOutput output;
+
     public FlatHandler() {
-        super(System.out, new FlatFormatter(true));
+        // Output is through StreamOutput; StreamHandler has no output.
+        super(OutputStream.nullOutputStream(), new FlatFormatter(true));
+        output = new StreamOutput(getClass().getSimpleName(),
+                                  ConsoleHandlerStream.protectStdOutput(System.out), charset(getEncoding()));
+        output.setDegrade(new HandlerConfig(getClass()));
     }
 
+    @Override
+    public void setEncoding(String encoding) throws SecurityException, UnsupportedEncodingException {
+        super.setEncoding(encoding);
+        // Called from the super constructor before output is set.
+        if ( output != null )
+            output.setCharset(charset(encoding));
+    }
+
+    private static Charset charset(String encoding) {
+        return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+    }
+
+    private final LatencyHistogram publishTimes = LatencyStats.handler(getClass().getSimpleName());
+
     @Override
     public void publish(LogRecord record) {
-        super.publish(record);
-        flush();
+        if ( LatencyStats.isEnabled() ) {
+            long start = System.nanoTime();
+            publish0(record);
+            publishTimes.record(System.nanoTime() - start);
+            return;
+        }
+        publish0(record);
+    }
+
+    // FlatFormatter has no head or tail so, unlike ConsoleHandlerStream, all records
+    // go straight to the output.
+    private void publish0(LogRecord record) {
+        if ( !isLoggable(record) )
+            return;
+        if ( output.dropDegraded(record.getLevel()) )
+            return;
+        LoggingStats.event(LogLevel.fromJUL(record.getLevel()));
+        String text;
+        try {
+            text = getFormatter().format(record);
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        try {
+            output.write(text);
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            output.flush();
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    /** Close, flushing but not closing {@code System.out}. */
+    @Override
+    public void close() {
+        // Stops further records being logged.
+        super.close();
+        try {
+            output.close(getFormatter().getTail(this));
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    /** Total time spent blocked writing output, in nanoseconds. */
+    public long getStallNanos() {
+        return output.getStallNanos();
+    }
+
+    /** Longest single write of output, in nanoseconds. */
+    public long getLongestStallNanos() {
+        return output.getLongestStallNanos();
+    }
+
+    /** Whether records below WARNING are being dropped because output is slow. */
+    public boolean isDegraded() {
+        return output.isDegraded();
     }
 }
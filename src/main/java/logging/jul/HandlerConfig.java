@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+import java.util.logging.LogManager;
+
+import logging.LoggingSystem;
+
+/** Reading handler settings from the {@link LogManager} properties. */
+final class HandlerConfig {
+    private final LogManager manager = LogManager.getLogManager();
+    private final String cname;
+
+    HandlerConfig(Class<?> cls) {
+        this.cname = cls.getName();
+    }
+
+    /** Property "{classname}.{pname}" or null. */
+    String get(String pname) {
+        if ( ! pname.startsWith(".") )
+            pname = "."+pname;
+        String x = manager.getProperty(cname+pname);
+        return x == null ? null : x.trim();
+    }
+
+    String get(String pname, String dftValue) {
+        String x = get(pname);
+        return x == null ? dftValue : x;
+    }
+
+    boolean getBoolean(String pname, boolean dftValue) {
+        String x = get(pname);
+        if ( x == null )
+            return dftValue;
+        return x.equalsIgnoreCase("true");
+    }
+
+    long getLong(String pname, long dftValue) {
+        String x = get(pname);
+        if ( x == null )
+            return dftValue;
+        try {
+            long v = Long.parseLong(x);
+            return v > 0 ? v : dftValue;
+        } catch (NumberFormatException ex) {
+            System.err.println(cname+": bad number for "+pname+": "+x);
+            return dftValue;
+        }
+    }
+
+    /** An int greater than zero, or the default. */
+    int getInt(String pname, int dftValue) {
+        return getInt(pname, getLong(pname, dftValue), dftValue);
+    }
+
+    /** Check a value read for the property fits in an int. */
+    int getInt(String pname, long v, int dftValue) {
+        if ( v > Integer.MAX_VALUE ) {
+            System.err.println(cname+": number too large for "+pname+": "+v);
+            return dftValue;
+        }
+        return (int)v;
+    }
+
+    /** A size in bytes greater than zero, with an optional suffix K, KB, M, MB, G or GB. */
+    long getSize(String pname, long dftValue) {
+        String x = get(pname);
+        if ( x == null )
+            return dftValue;
+        try {
+            long v = LoggingSystem.parseSize(x);
+            if ( v <= 0 ) {
+                System.err.println(cname+": size must be greater than zero for "+pname+": "+x);
+                return dftValue;
+            }
+            return v;
+        } catch (NumberFormatException ex) {
+            System.err.println(cname+": bad size for "+pname+": "+x);
+            return dftValue;
+        }
+    }
+
+    /** Create an instance of the class named by the property, or return null. */
+    <X> X newInstance(String pname, Class<X> type) {
+        String clsName = get(pname);
+        if ( clsName == null )
+            return null;
+        try {
+            Class<?> cls = ClassLoader.getSystemClassLoader().loadClass(clsName);
+            @SuppressWarnings("deprecation")
+            Object obj = cls.newInstance();
+            return type.cast(obj);
+        } catch (Exception ex) {
+            System.err.println(cname+": problems creating "+pname+" = "+clsName);
+            ex.printStackTrace(System.err);
+            return null;
+        }
+    }
+}
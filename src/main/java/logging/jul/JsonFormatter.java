@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/** A formatter that outputs one JSON object per line ("JSON lines").
+ * <p>
+ * Example (one line):
+ * <pre>
+ * {"timestamp":"2022-10-07T10:15:30.123Z","level":"INFO","logger":"org.example.Main",
+ *  "thread":"main","message":"Started"}</pre>
+ * If the record has a throwable, there is an {@code "exception"} member:
+ * <pre>
+ * "exception":{"class":"...","message":"...","frames":["...", ...],"cause":{...}}</pre>
+ * Levels are output using the SLF4J names, as in {@link TextFormatter}.
+ * Nothing is needed beyond the JDK.
+ * <p>
+ * Example:
+ * <pre>
+ * handlers=logging.jul.ConsoleHandlerStream
+ * logging.jul.ConsoleHandlerStream.formatter=logging.jul.JsonFormatter</pre>
+ */
+public class JsonFormatter extends Formatter {
+
+    // Buffers larger than this are not kept after use.
+    private static final int MAX_KEEP = 16*1024;
+    private static final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(()->new StringBuilder(256));
+
+    public JsonFormatter() {}
+
+    @Override
+    public String format(LogRecord record) {
+        StringBuilder sb = buffers.get();
+        sb.setLength(0);
+        try {
+            sb.append("{\"timestamp\":\"");
+            DateTimeFormatter.ISO_INSTANT.formatTo(record.getInstant(), sb);
+            sb.append("\",\"level\":");
+            string(sb, levelOutputName(record.getLevel()));
+            sb.append(",\"logger\":");
+            String loggerName = record.getLoggerName();
+            string(sb, loggerName == null ? "root" : loggerName);
+            sb.append(",\"thread\":");
+            string(sb, Thread.currentThread().getName());
+            sb.append(",\"message\":");
+            string(sb, MessageFormats.format(record.getMessage(), record.getParameters()));
+            Throwable th = record.getThrown();
+            if ( th != null ) {
+                sb.append(",\"exception\":");
+                throwable(sb, th, Collections.newSetFromMap(new IdentityHashMap<>()));
+            }
+            sb.append("}\n");
+            return sb.toString();
+        } finally {
+            if ( sb.capacity() > MAX_KEEP )
+                buffers.remove();
+        }
+    }
+
+    /** By default use the SLF4J name. */
+    protected String levelOutputName(Level level) {
+        return TextFormatter.slf4jLevelName(level);
+    }
+
+    private static void throwable(StringBuilder sb, Throwable th, Set<Throwable> seen) {
+        seen.add(th);
+        sb.append("{\"class\":");
+        string(sb, th.getClass().getName());
+        if ( th.getMessage() != null ) {
+            sb.append(",\"message\":");
+            string(sb, th.getMessage());
+        }
+        sb.append(",\"frames\":[");
+        StackTraceElement[] frames = th.getStackTrace();
+        for ( int i = 0 ; i < frames.length ; i++ ) {
+            if ( i != 0 )
+                sb.append(',');
+            string(sb, frames[i].toString());
+        }
+        sb.append(']');
+        Throwable cause = th.getCause();
+        if ( cause != null && !seen.contains(cause) ) {
+            sb.append(",\"cause\":");
+            throwable(sb, cause, seen);
+        }
+        sb.append('}');
+    }
+
+    /** Append a JSON string, with quotes. */
+    private static void string(StringBuilder sb, String s) {
+        sb.append('"');
+        if ( s != null ) {
+            if ( needsEscape(s) )
+                escape(sb, s);
+            else
+                sb.append(s);
+        }
+        sb.append('"');
+    }
+
+    private static boolean needsEscape(String s) {
+        for ( int i = 0 ; i < s.length() ; i++ ) {
+            char ch = s.charAt(i);
+            if ( ch < 0x20 || ch == '"' || ch == '\\' )
+                return true;
+        }
+        return false;
+    }
+
+    private static final char[] hex = "0123456789abcdef".toCharArray();
+
+    private static void escape(StringBuilder sb, String s) {
+        for ( int i = 0 ; i < s.length() ; i++ ) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\b': sb.append("\\b"); break;
+                case '\f': sb.append("\\f"); break;
+                default:
+                    if ( ch < 0x20 )
+                        sb.append("\\u00").append(hex[ch >> 4]).append(hex[ch & 0xF]);
+                    else
+                        sb.append(ch);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@link MessageFormat} processing of {@link java.util.logging.LogRecord} messages
+ * with parameters, keeping compiled patterns.
+ * <p>
+ * {@code MessageFormat} is not thread-safe so the cache is per-thread. It is a small
+ * LRU so a logger with unbounded distinct patterns does not grow it.
+ */
+final class MessageFormats {
+    private MessageFormats() {}
+
+    private static final int MAX_CACHED = 64;
+
+    private static final ThreadLocal<Cache> cache = ThreadLocal.withInitial(Cache::new);
+
+    /**
+     * Apply the parameters to the message, as
+     * {@code MessageFormat.format(message, params)} would.
+     * Messages without a "{" are returned unchanged.
+     */
+    static String format(String message, Object[] params) {
+        if ( message == null || params == null || message.indexOf('{') < 0 )
+            return message;
+        return cache.get().messageFormat(message).format(params);
+    }
+
+    private static class Cache extends LinkedHashMap<String, MessageFormat> {
+        private static final long serialVersionUID = 1L;
+        private Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+
+        Cache() { super(16, 0.75f, true); }
+
+        MessageFormat messageFormat(String pattern) {
+            // MessageFormat.format uses the current default locale.
+            Locale current = Locale.getDefault(Locale.Category.FORMAT);
+            if ( ! current.equals(locale) ) {
+                clear();
+                locale = current;
+            }
+            MessageFormat mf = get(pattern);
+            if ( mf == null ) {
+                mf = new MessageFormat(pattern, locale);
+                put(pattern, mf);
+            }
+            return mf;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MessageFormat> eldest) {
+            return size() > MAX_CACHED;
+        }
+    }
+}
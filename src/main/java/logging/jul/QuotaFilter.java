@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+import java.util.logging.Filter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import logging.ByteQuotas;
+
+/**
+ * Filter that applies {@link ByteQuotas} to the records a handler outputs.
+ * It can wrap another filter; only records passing that filter count against the quota.
+ * <p>
+ * The size of a record is approximated, so that the record is not formatted twice (here
+ * and by the handler's formatter): it is the length of the message pattern in UTF-8 plus
+ * the length in characters of any {@link CharSequence} parameters. Other parameters, and
+ * the layout added by the formatter, are not counted. The summary of
+ * refused records is logged as a warning to the logger of the quota prefix, and is not
+ * itself subject to the quota. When the handler closes, the last summaries go
+ * directly to it.
+ * <p>
+ * Installed on {@link ConsoleHandlerStream} by the JUL setup when the system property
+ * {@code logging.quotas} is set, or configure with
+ * <pre>
+ * logging.jul.ConsoleHandlerStream.filter=logging.jul.QuotaFilter
+ * logging.jul.QuotaFilter.quotas=org.apache.jena.riot=2MB/s
+ * </pre>
+ */
+public class QuotaFilter implements Filter {
+    private final Filter filter;
+    private final ByteQuotas quotas;
+    // Set when the handler is closing.
+    private volatile Handler closing = null;
+
+    /** Quotas from the property "logging.jul.QuotaFilter.quotas" or, if not set, "logging.quotas". */
+    public QuotaFilter() {
+        this(null, new HandlerConfig(QuotaFilter.class).get("quotas", System.getProperty(ByteQuotas.PROPERTY, "")));
+    }
+
+    public QuotaFilter(Filter filter, String spec) {
+        this.filter = filter;
+        this.quotas = new ByteQuotas(spec, this::summary);
+    }
+
+    /** The QuotaFilter, possibly wrapped by a {@link CountingFilter}, or null. */
+    static QuotaFilter find(Filter filter) {
+        if ( filter instanceof CountingFilter )
+            filter = ((CountingFilter)filter).getFilter();
+        return ( filter instanceof QuotaFilter ) ? (QuotaFilter)filter : null;
+    }
+
+    /** Stop the quotas, giving any summaries to the handler. */
+    void close(Handler handler) {
+        closing = handler;
+        quotas.close();
+    }
+
+    /** The wrapped filter, or null. */
+    public Filter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public boolean isLoggable(LogRecord record) {
+        if ( record instanceof Summary )
+            return true;
+        if ( filter != null && !filter.isLoggable(record) )
+            return false;
+        return quotas.allow(record.getLoggerName(), size(record));
+    }
+
+    /** Approximate size of the formatted message, without formatting it. */
+    private static long size(LogRecord record) {
+        String msg = record.getMessage();
+        long bytes = ( msg == null ) ? 0 : ByteQuotas.utf8Length(msg);
+        Object[] params = record.getParameters();
+        if ( params != null ) {
+            for ( Object p : params ) {
+                if ( p instanceof CharSequence )
+                    bytes += ((CharSequence)p).length();
+            }
+        }
+        return bytes;
+    }
+
+    private void summary(String prefix, String text) {
+        Summary record = new Summary(text);
+        record.setLoggerName(prefix);
+        Handler handler = closing;
+        if ( handler != null )
+            handler.publish(record);
+        else
+            Logger.getLogger(prefix).log(record);
+    }
+
+    /** Marks the summary records, which pass the filter. */
+    private static class Summary extends LogRecord {
+        private static final long serialVersionUID = 1L;
+        Summary(String text) {
+            super(Level.WARNING, text);
+        }
+    }
+}
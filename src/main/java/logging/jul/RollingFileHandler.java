@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Locale;
+import java.util.logging.*;
+
+import logging.LogLevel;
+import logging.LoggingStats;
+import logging.jfr.JfrEvents;
+
+/**
+ * File handler that writes through a {@link FileChannel} with a direct buffer, and
+ * rolls over to a new file when the file reaches a size limit.
+ * <p>
+ * Configuration:
+ * <ul>
+ * <li>{@code .file} -- the log file (default {@code logging.log})</li>
+ * <li>{@code .limit} -- size at which to roll over to a new file (default 64MB)</li>
+ * <li>{@code .count} -- number of files, including the current one, to keep (default 5)</li>
+ * <li>{@code .bufferSize} -- size of the write buffer (default 256KB)</li>
+ * <li>{@code .preallocate} -- whether to fill a new file with zeros up to the size limit
+ *     when it is created (default false)</li>
+ * <li>{@code .fsync} -- when to force data to disk: {@code NEVER}, {@code INTERVAL}
+ *     (default) or {@code ERROR} (on each SEVERE record)</li>
+ * <li>{@code .interval} -- milliseconds between writing out the buffer, and forcing
+ *     to disk with {@code fsync=INTERVAL} (default 1000)</li>
+ * <li>{@code .level}, {@code .filter}, {@code .formatter} and {@code .encoding} --
+ *     as for {@link ConsoleHandlerStream}</li>
+ * </ul>
+ * Example:
+ * <pre>
+ * handlers=logging.jul.RollingFileHandler
+ * logging.jul.RollingFileHandler.file=log/audit.log
+ * logging.jul.RollingFileHandler.limit=256MB
+ * logging.jul.RollingFileHandler.fsync=ERROR</pre>
+ * On rollover, "file.N" is renamed to "file.N+1", and the current file to "file.1".
+ * Renames are atomic where the file system supports it. An existing file is rolled
+ * over when the handler starts.
+ * <p>
+ * A preallocated file is truncated to the written length when it is rolled over or the
+ * handler is closed. After a crash, a file may end with unused, zero-filled space.
+ * Preallocation writes the whole file, so disk blocks are allocated up front; opening a
+ * new file takes correspondingly longer.
+ */
+public class RollingFileHandler extends Handler {
+
+    /** When to force written data to disk. */
+    public enum FSync { NEVER, INTERVAL, ERROR }
+
+    private static final long dftLimit = 64L*1024*1024;
+    private static final int dftCount = 5;
+    private static final int dftBufferSize = 256*1024;
+    // Large enough for any one encoded character.
+    private static final int minBufferSize = 1024;
+    private static final long dftInterval = 1000;
+
+    private final Path file;
+    private final long limit;
+    private final int count;
+    private final boolean preallocate;
+    private final FSync fsync;
+    private final long interval;
+
+    // Guarded by "this".
+    private final ByteBuffer buffer;
+    private CharsetEncoder encoder = newEncoder(StandardCharsets.UTF_8);
+    private FileChannel channel = null;
+    // Bytes written to the channel for the current file.
+    private long position = 0;
+
+    private final Thread syncThread;
+    private volatile boolean closed = false;
+
+    public RollingFileHandler() {
+        HandlerConfig config = new HandlerConfig(getClass());
+        this.file = Paths.get(config.get("file", "logging.log"));
+        this.limit = config.getSize("limit", dftLimit);
+        this.count = config.getInt("count", dftCount);
+        this.preallocate = config.getBoolean("preallocate", false);
+        this.interval = config.getLong("interval", dftInterval);
+        FSync policy = FSync.INTERVAL;
+        String pFSync = config.get("fsync");
+        if ( pFSync != null ) {
+            try { policy = FSync.valueOf(pFSync.toUpperCase(Locale.ROOT)); }
+            catch (IllegalArgumentException ex) {
+                System.err.println("RollingFileHandler: unrecognized fsync policy: "+pFSync);
+            }
+        }
+        this.fsync = policy;
+        int bufferSize = config.getInt("bufferSize", config.getSize("bufferSize", dftBufferSize), dftBufferSize);
+        if ( bufferSize < minBufferSize ) {
+            System.err.println("RollingFileHandler: bufferSize too small, using "+minBufferSize+": "+bufferSize);
+            bufferSize = minBufferSize;
+        }
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+
+        String pLevel = config.get("level");
+        setLevel(pLevel == null ? Level.INFO : Level.parse(pLevel));
+        Formatter formatter = config.newInstance("formatter", Formatter.class);
+        setFormatter(formatter == null ? new TextFormatter() : formatter);
+        Filter filter = config.newInstance("filter", Filter.class);
+        if ( filter != null )
+            setFilter(filter);
+        try { setEncoding(config.get("encoding", StandardCharsets.UTF_8.name())); }
+        catch (UnsupportedEncodingException ex) {
+            System.err.println("RollingFileHandler: failed to set encoding: "+ex.getMessage());
+        }
+        this.syncThread = start();
+    }
+
+    /** Programmatic setup. */
+    public RollingFileHandler(Path file, long limit, int count, FSync fsync) {
+        this.file = file;
+        this.limit = limit;
+        this.count = count;
+        this.preallocate = false;
+        this.fsync = fsync;
+        this.interval = dftInterval;
+        this.buffer = ByteBuffer.allocateDirect(dftBufferSize);
+        setLevel(Level.ALL);
+        setFormatter(new TextFormatter());
+        this.syncThread = start();
+    }
+
+    private Thread start() {
+        Thread thread = new Thread(this::syncLoop, "RollingFileHandler-"+file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    @Override
+    public synchronized void setEncoding(String encoding) throws SecurityException, UnsupportedEncodingException {
+        super.setEncoding(encoding);
+        Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+        this.encoder = newEncoder(charset);
+    }
+
+    private static CharsetEncoder newEncoder(Charset charset) {
+        return charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if ( closed || !isLoggable(record) )
+            return;
+        String text;
+        try {
+            text = getFormatter().format(record);
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        LoggingStats.event(LogLevel.fromJUL(record.getLevel()));
+        boolean force = fsync == FSync.ERROR && record.getLevel().intValue() >= Level.SEVERE.intValue();
+        JfrEvents.Timing stall = JfrEvents.writeStall(getClass().getSimpleName());
+        long bytes = 0;
+        synchronized(this) {
+            if ( closed )
+                return;
+            try {
+                if ( channel == null )
+                    openFile();
+                long before = size();
+                encode(text);
+                bytes = size() - before;
+                if ( size() >= limit )
+                    rollover();
+                else if ( force )
+                    sync(true);
+            } catch (ClosedChannelException ex) {
+                reportError(null, ex, ErrorManager.WRITE_FAILURE);
+                reopen();
+            } catch (IOException ex) {
+                reportError(null, ex, ErrorManager.WRITE_FAILURE);
+            }
+        }
+        stall.finish(bytes);
+    }
+
+    /** Bytes in the current file, including those still in the buffer. */
+    private long size() {
+        return position + buffer.position();
+    }
+
+    private void encode(String text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        CoderResult cr = encoder.encode(chars, buffer, true);
+        while ( cr.isOverflow() ) {
+            drain();
+            cr = encoder.encode(chars, buffer, true);
+        }
+        cr = encoder.flush(buffer);
+        while ( cr.isOverflow() ) {
+            drain();
+            cr = encoder.flush(buffer);
+        }
+    }
+
+    /** Write the buffer to the channel. */
+    private void drain() throws IOException {
+        buffer.flip();
+        long start = position;
+        try {
+            while ( buffer.hasRemaining() )
+                position += channel.write(buffer, position);
+        } finally {
+            // Keep any bytes not written, ready for more encoding.
+            buffer.compact();
+            LoggingStats.bytesWritten(position - start);
+        }
+    }
+
+    private void sync(boolean force) throws IOException {
+        if ( channel == null )
+            return;
+        JfrEvents.Timing flush = JfrEvents.handlerFlush(getClass().getSimpleName());
+        long bytes = buffer.position();
+        drain();
+        if ( force )
+            channel.force(false);
+        flush.finish(bytes);
+    }
+
+    private void openFile() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if ( dir != null )
+            Files.createDirectories(dir);
+        if ( Files.exists(file) )
+            rename();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        position = 0;
+        if ( preallocate )
+            preallocate(channel, limit);
+        String head = getFormatter().getHead(this);
+        if ( head != null && !head.isEmpty() )
+            encode(head);
+    }
+
+    private static final int ZERO_BLOCK = 64*1024;
+
+    // Write zeros up to the final size so the file system allocates real blocks,
+    // not a sparse file.
+    private static void preallocate(FileChannel channel, long size) throws IOException {
+        ByteBuffer zero = ByteBuffer.allocateDirect(ZERO_BLOCK);
+        long pos = 0;
+        while ( pos < size ) {
+            zero.clear();
+            if ( size - pos < ZERO_BLOCK )
+                zero.limit((int)(size - pos));
+            while ( zero.hasRemaining() )
+                pos += channel.write(zero, pos);
+        }
+    }
+
+    // Interrupting a thread in a channel operation closes the channel.
+    // Continue with the same file. The interrupt status is cleared while reopening
+    // and restored afterwards, for the caller to handle.
+    private void reopen() {
+        boolean interrupted = Thread.interrupted();
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            channel = null;
+            reportError(null, ex, ErrorManager.OPEN_FAILURE);
+        } finally {
+            if ( interrupted )
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Finish the current file: write the tail, trim the preallocated space and close. */
+    private void closeFile() throws IOException {
+        if ( channel == null )
+            return;
+        try {
+            String tail = getFormatter().getTail(this);
+            if ( tail != null && !tail.isEmpty() )
+                encode(tail);
+            drain();
+            channel.truncate(position);
+            if ( fsync != FSync.NEVER )
+                channel.force(true);
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void rollover() throws IOException {
+        closeFile();
+        openFile();
+    }
+
+    /** Move "file.N" to "file.N+1", dropping the oldest, and "file" to "file.1". */
+    private void rename() throws IOException {
+        if ( count <= 1 ) {
+            Files.delete(file);
+            return;
+        }
+        Files.deleteIfExists(numbered(count-1));
+        for ( int i = count-2 ; i >= 1 ; i-- ) {
+            Path p = numbered(i);
+            if ( Files.exists(p) )
+                move(p, numbered(i+1));
+        }
+        move(file, numbered(1));
+    }
+
+    private Path numbered(int i) {
+        return file.resolveSibling(file.getFileName().toString()+"."+i);
+    }
+
+    private static void move(Path src, Path dst) throws IOException {
+        try {
+            Files.move(src, dst, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(src, dst, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void syncLoop() {
+        while ( !closed ) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            synchronized(this) {
+                if ( closed )
+                    return;
+                try {
+                    sync(fsync == FSync.INTERVAL);
+                } catch (IOException ex) {
+                    reportError(null, ex, ErrorManager.FLUSH_FAILURE);
+                }
+            }
+        }
+    }
+
+    /** Write out buffered output (does not force it to disk). */
+    @Override
+    public synchronized void flush() {
+        try {
+            sync(false);
+        } catch (IOException ex) {
+            reportError(null, ex, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    @Override
+    public void close() throws SecurityException {
+        synchronized(this) {
+            if ( closed )
+                return;
+            closed = true;
+            try {
+                closeFile();
+            } catch (IOException ex) {
+                reportError(null, ex, ErrorManager.CLOSE_FAILURE);
+            }
+        }
+        syncThread.interrupt();
+    }
+}
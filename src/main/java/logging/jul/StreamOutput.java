@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import logging.LoggingStats;
+import logging.jfr.JfrEvents;
+
+/**
+ * Output for the console handlers.
+ * <p>
+ * The text of a record is encoded on the calling thread into a buffer from {@link Encoders}
+ * and only the write of the bytes, as a single {@code write} call, is done holding the lock.
+ * One record is one write so lines from different threads do not interleave. The lock is
+ * a {@link ReentrantLock}, not a monitor, so a virtual thread blocked writing does not pin
+ * its carrier thread. A head, such as a formatter head, is written under the same lock
+ * before the first output, and a tail on {@link #close}.
+ * <p>
+ * The time spent in each write and flush of the output stream, once the lock is held, is
+ * recorded as stall time; waiting for the lock because of other threads logging is not
+ * counted. If a degrade threshold is set, a write taking longer than the threshold puts
+ * the output into degrade mode: records below WARNING are dropped until the cool-down has
+ * passed without another slow write. Entering and leaving degrade mode are noted in the
+ * output.
+ */
+final class StreamOutput {
+    // Buffers larger than this are not kept after use.
+    private static final int MAX_KEEP = 64*1024;
+    private static final int INITIAL = 1024;
+
+    private final String name;
+    private final OutputStream out;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Charset charset;
+
+    private final LongAdder stallNanos = new LongAdder();
+    private final AtomicLong longestStall = new AtomicLong();
+
+    // Degrade mode. A threshold of 0 is off.
+    private volatile long degradeThreshold = 0;
+    private volatile long degradeCooldown = 0;
+    private volatile long degradedUntil = 0;
+    private final AtomicBoolean degraded = new AtomicBoolean(false);
+    private final LongAdder degradeDropped = new LongAdder();
+
+    // Written before the first output, then null. Guarded by lock.
+    private Supplier<String> head = null;
+    // Guarded by lock.
+    private boolean closed = false;
+
+    /** The name is used in JFR events. */
+    StreamOutput(String name, OutputStream out, Charset charset) {
+        this.name = name;
+        this.out = out;
+        this.charset = charset;
+    }
+
+    void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /** Set the text to write before the first output. */
+    void setHead(Supplier<String> head) {
+        lock.lock();
+        try {
+            this.head = head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called holding the lock.
+    private void writeHead() throws IOException {
+        Supplier<String> h = head;
+        head = null;
+        writeText(h.get());
+    }
+
+    // Called holding the lock. Not timed; does not use the encoders.
+    private void writeText(String text) throws IOException {
+        if ( text != null && !text.isEmpty() )
+            out.write(text.getBytes(charset));
+    }
+
+    /** Configure degrade mode; a threshold of 0 turns it off. */
+    void setDegrade(long thresholdMillis, long cooldownMillis) {
+        this.degradeThreshold = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.degradeCooldown = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+    }
+
+    /**
+     * Configure degrade mode from the handler properties {@code .degrade.threshold} and
+     * {@code .degrade.cooldown} (milliseconds, default 5000).
+     */
+    void setDegrade(HandlerConfig config) {
+        setDegrade(config.getLong("degrade.threshold", 0), config.getLong("degrade.cooldown", 5000));
+    }
+
+    /**
+     * Whether a record at this level is to be dropped because the output is in degrade
+     * mode. Dropped records are counted.
+     */
+    boolean dropDegraded(Level level) {
+        if ( ! degraded.get() )
+            return false;
+        if ( System.nanoTime() - degradedUntil > 0 ) {
+            if ( degraded.compareAndSet(true, false) ) {
+                long count = degradeDropped.sumThenReset();
+                JfrEvents.recordsDropped(name, count);
+                notice(String.format("%s: output recovered; %d records below WARNING were dropped", name, count));
+            }
+            return false;
+        }
+        if ( level.intValue() >= Level.WARNING.intValue() )
+            return false;
+        degradeDropped.increment();
+        LoggingStats.dropped(1);
+        return true;
+    }
+
+    /** Encode and write the text, then flush. */
+    void write(String text) throws IOException {
+        Encoder encoder = Encoders.acquire();
+        try {
+            ByteBuffer bytes = encoder.encode(text, charset);
+            int length = bytes.limit();
+            JfrEvents.Timing stall = JfrEvents.writeStall(name);
+            long nanos;
+            lock.lock();
+            try {
+                if ( head != null )
+                    writeHead();
+                long start = System.nanoTime();
+                out.write(bytes.array(), bytes.arrayOffset(), length);
+                out.flush();
+                nanos = System.nanoTime() - start;
+            } finally {
+                lock.unlock();
+            }
+            stalled(nanos);
+            stall.finish(length);
+            LoggingStats.bytesWritten(length);
+        } finally {
+            Encoders.release(encoder);
+        }
+    }
+
+    private void stalled(long nanos) {
+        stallNanos.add(nanos);
+        longestStall.accumulateAndGet(nanos, Math::max);
+        LoggingStats.writeStall(nanos);
+        long threshold = degradeThreshold;
+        if ( threshold <= 0 || nanos <= threshold )
+            return;
+        degradedUntil = System.nanoTime() + degradeCooldown;
+        if ( degraded.compareAndSet(false, true) )
+            notice(String.format("%s: write stalled for %dms; dropping records below WARNING", name, TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    /** Write a line about degrade mode. This is not timed and does not use the encoders. */
+    private void notice(String msg) {
+        lock.lock();
+        try {
+            if ( head != null )
+                writeHead();
+            writeText(msg+System.lineSeparator());
+            out.flush();
+        } catch (IOException ex) {
+            /* The output is already failing. */
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Total time spent in writes, not including waiting for the lock, in nanoseconds. */
+    long getStallNanos() {
+        return stallNanos.sum();
+    }
+
+    /** Longest single write, in nanoseconds. */
+    long getLongestStallNanos() {
+        return longestStall.get();
+    }
+
+    boolean isDegraded() {
+        return degraded.get();
+    }
+
+    void flush() throws IOException {
+        lock.lock();
+        try {
+            out.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Write the head, if not already written, and the tail, then close the output stream. */
+    void close(String tail) throws IOException {
+        lock.lock();
+        try {
+            if ( closed )
+                return;
+            closed = true;
+            if ( head != null )
+                writeHead();
+            writeText(tail);
+            out.flush();
+            out.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Encoder and byte buffer, used by one thread at a time. */
+    static class Encoder {
+        private CharsetEncoder encoder = null;
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL);
+
+        ByteBuffer encode(String text, Charset charset) {
+            if ( encoder == null || ! encoder.charset().equals(charset) ) {
+                // Same as OutputStreamWriter.
+                encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            CharBuffer chars = CharBuffer.wrap(text);
+            buffer.clear();
+            encoder.reset();
+            CoderResult cr = encoder.encode(chars, buffer, true);
+            while ( cr.isOverflow() ) {
+                grow();
+                cr = encoder.encode(chars, buffer, true);
+            }
+            cr = encoder.flush(buffer);
+            while ( cr.isOverflow() ) {
+                grow();
+                cr = encoder.flush(buffer);
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private void grow() {
+            ByteBuffer bigger = ByteBuffer.allocate(2*buffer.capacity());
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+
+        void release() {
+            if ( buffer.capacity() > MAX_KEEP )
+                buffer = ByteBuffer.allocate(INITIAL);
+        }
+    }
+}
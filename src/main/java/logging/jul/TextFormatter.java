@@ -20,13 +20,14 @@ package logging.jul;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.text.MessageFormat;
 import java.util.Date;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.LogRecord;
 
+import logging.LogLevel;
+
 /** A pattern-driven log formatter.
  * Inspired by Log4j's PatternLayout
  * Set a different output pattern with {@code .format}.
@@ -87,9 +88,7 @@ public class TextFormatter extends Formatter
         int i = loggerName.lastIndexOf('.');
         String loggerNameShort = loggerName.substring(i+1);
 
-        String formatted$ = record.getMessage();
-        if ( record.getParameters() != null )
-            formatted$ = MessageFormat.format(formatted$, record.getParameters());
+        String formatted$ = MessageFormats.format(record.getMessage(), record.getParameters());
 
         String throwable = "";
         Throwable th = record.getThrown();
@@ -120,27 +119,19 @@ public class TextFormatter extends Formatter
      */
 
     protected String levelOutputName(Level level) {
-        //    FINEST  -> TRACE
-        //    FINER   -> DEBUG
-        //    FINE    -> DEBUG
-        //    CONFIG  -> CONF
-        //    INFO    -> INFO
-        //    WARNING -> WARN
-        //    SEVERE  -> ERROR
-        if ( Level.WARNING.equals(level) )
-            return "WARN";
-        if ( Level.SEVERE.equals(level) )
-            return "ERROR";
-        if ( Level.INFO.equals(level) )
-            return "INFO";
-        if ( Level.CONFIG.equals(level) )   // Keep name. No equivalent in SLF4J.
+        return slf4jLevelName(level);
+    }
+
+    /**
+     * The SLF4J name for a JUL level, as {@link LogLevel#fromJUL}, except that CONFIG
+     * keeps its name ("CONF") as there is no equivalent in SLF4J.
+     */
+    /* package */ static String slf4jLevelName(Level level) {
+        if ( Level.CONFIG.equals(level) )
             return "CONF";
-        if ( Level.FINE.equals(level) )
-            return "DEBUG";
-        if ( Level.FINER.equals(level) )
-            return "DEBUG";
-        if ( Level.FINEST.equals(level) )
-            return "TRACE";
+        if ( Level.SEVERE.equals(level) || Level.WARNING.equals(level) || Level.INFO.equals(level)
+             || Level.FINE.equals(level) || Level.FINER.equals(level) || Level.FINEST.equals(level) )
+            return LogLevel.fromJUL(level).name();
         return level.getName();
     }
 }
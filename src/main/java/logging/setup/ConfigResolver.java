@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.setup;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Find the configuration for a {@link LoggingSetup}.
+ * <p>
+ * The candidates, in order, are for each configuration file name:
+ * the file, the classpath resource, and the classpath resource under the path base.
+ * Candidates are looked up one at a time, in order, and only until one is found; the
+ * URL found is kept so the resource is not looked up again to read it.
+ */
+final class ConfigResolver {
+
+    /** A place to look for a configuration. */
+    static final class Candidate {
+        final boolean isFile;
+        final String name;
+
+        Candidate(boolean isFile, String name) {
+            this.isFile = isFile;
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return (isFile ? LoggingSetup.SOURCE_FILE : LoggingSetup.SOURCE_CLASSPATH) + name;
+        }
+    }
+
+    private final List<Candidate> candidates;
+    // URL found for each classpath candidate.
+    private final URL[] urls;
+    private final Function<String, URL> lookup;
+    private int lookups = 0;
+
+    ConfigResolver(String[] names, String pathBase, Function<String, URL> lookup) {
+        List<Candidate> x = new ArrayList<>(3*names.length);
+        for ( String fn : names ) {
+            if ( fn == null )
+                continue;
+            x.add(new Candidate(true, fn));
+            x.add(new Candidate(false, fn));
+            if ( pathBase != null )
+                x.add(new Candidate(false, pathBase + fn));
+        }
+        this.candidates = x;
+        this.urls = new URL[x.size()];
+        this.lookup = lookup;
+    }
+
+    /** Return the first candidate that exists, from index {@code start}, or -1. */
+    int next(int start) {
+        for ( int i = start ; i < candidates.size() ; i++ ) {
+            if ( exists(i) )
+                return i;
+        }
+        return -1;
+    }
+
+    Candidate get(int idx) {
+        return candidates.get(idx);
+    }
+
+    /** The URL found for a classpath candidate returned by {@link #next}. */
+    URL url(int idx) {
+        return urls[idx];
+    }
+
+    /** The number of class loader lookups done. */
+    int lookups() {
+        return lookups;
+    }
+
+    private boolean exists(int idx) {
+        Candidate candidate = candidates.get(idx);
+        if ( candidate.isFile )
+            return new File(candidate.name).exists();
+        lookups++;
+        urls[idx] = lookup.apply(candidate.name);
+        return urls[idx] != null;
+    }
+}
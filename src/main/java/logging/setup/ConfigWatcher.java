@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.setup;
+
+import static logging.LoggingSystem.logAlways;
+import static logging.LoggingSystem.logLogging;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+import logging.LoggingSystem;
+
+/**
+ * Watch a configuration file and re-apply it, via
+ * {@link LoggingSetup#reconfigure(Path, String)}, when it changes.
+ * <p>
+ * The file's directory is watched with a {@link WatchService}. The configuration is
+ * re-read once there have been no changes to the file for the debounce period, so an
+ * editor saving in several steps causes one reload; changes to other files in the
+ * directory, such as a log file, are ignored. A file that keeps changing is re-read
+ * after at most {@value #MAX_SETTLE} debounce periods. There is one watcher at a time.
+ * <p>
+ * For JUL, levels and other properties are updated and root handlers whose properties
+ * have changed are recreated; the "handlers" lists are not re-applied.
+ */
+final class ConfigWatcher {
+
+    // Maximum wait for a file to settle, in debounce periods.
+    private static final int MAX_SETTLE = 10;
+
+    private static ConfigWatcher current = null;
+
+    /** Watch the file if {@link LoggingSystem#getWatchConfiguration()} is set. */
+    static synchronized void watchIfEnabled(LoggingSetup setup, Path file, String name) {
+        long debounce = LoggingSystem.getWatchConfiguration();
+        if ( debounce < 0 )
+            return;
+        if ( current != null )
+            current.stop();
+        current = null;
+        try {
+            current = new ConfigWatcher(setup, file.toAbsolutePath(), name, debounce);
+            logLogging("Watching %s", current.file);
+        } catch (IOException ex) {
+            logAlways("Can't watch %s: %s", file, ex.getMessage());
+        }
+    }
+
+    private final LoggingSetup setup;
+    private final Path file;
+    private final String name;
+    private final long debounce;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    private ConfigWatcher(LoggingSetup setup, Path file, String name, long debounce) throws IOException {
+        this.setup = setup;
+        this.file = file;
+        this.name = name;
+        this.debounce = debounce;
+        this.watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService,
+                                  StandardWatchEventKinds.ENTRY_CREATE,
+                                  StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "logging-config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void stop() {
+        try { watchService.close(); } catch (IOException ex) {}
+    }
+
+    private void run() {
+        try {
+            while ( true ) {
+                // Wait for a change to the file.
+                if ( !changed(watchService.take()) )
+                    continue;
+                // Wait until it settles.
+                long quiet = TimeUnit.MILLISECONDS.toNanos(debounce);
+                long lastChange = System.nanoTime();
+                long limit = lastChange + MAX_SETTLE*quiet;
+                for ( ;; ) {
+                    long wait = Math.min(lastChange + quiet, limit) - System.nanoTime();
+                    if ( wait <= 0 )
+                        break;
+                    WatchKey key = watchService.poll(wait, TimeUnit.NANOSECONDS);
+                    if ( key != null && changed(key) )
+                        lastChange = System.nanoTime();
+                }
+                reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ex) {
+            // Stopped.
+        }
+    }
+
+    /** Whether the events of a key include the watched file. Resets the key. */
+    private boolean changed(WatchKey key) {
+        boolean b = false;
+        for ( WatchEvent<?> event : key.pollEvents() ) {
+            Object context = event.context();
+            if ( context instanceof Path && file.getFileName().equals(context) )
+                b = true;
+        }
+        key.reset();
+        return b;
+    }
+
+    private void reload() {
+        if ( !Files.exists(file) )
+            return;
+        logLogging("Reload %s", file);
+        try {
+            setup.reconfigure(file, name);
+        } catch (Exception ex) {
+            logAlways("Failed to reload %s: %s", file, ex.getMessage());
+        }
+    }
+}
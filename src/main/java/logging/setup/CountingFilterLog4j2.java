@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.setup;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+
+import logging.EventCounters;
+
+/**
+ * Log4j2 filter that counts events in {@link EventCounters} and passes them on.
+ * <p>
+ * It is added to the root logger configuration, so it sees the events that reach the
+ * root logger; events of loggers with {@code additivity="false"} are not counted.
+ */
+final class CountingFilterLog4j2 extends AbstractFilter {
+
+    @Override
+    public Result filter(LogEvent event) {
+        EventCounters.emitted(event.getLoggerName(), LoggingSetupLog4j2.logLevel(event.getLevel()));
+        return Result.NEUTRAL;
+    }
+}
@@ -21,10 +21,23 @@ package logging.setup;
 import static logging.LoggingSystem.logLogging;
 
 import java.io.*;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import logging.ByteQuotas;
+import logging.EventCounters;
+import logging.LogLevel;
+import logging.LogLevelListener;
 import logging.LoggingSystem;
+import logging.jfr.JfrEvents;
 
 /**
  * Provide encapsulation of the different logging provided when used with slf4j (or used
@@ -74,6 +87,15 @@ import logging.LoggingSystem;
  */
 
 public abstract class LoggingSetup {
+    /** Prefix of {@link #getConfigSource()} for a file. */
+    public static final String SOURCE_FILE = "file:";
+    /** Prefix of {@link #getConfigSource()} for a classpath resource. */
+    public static final String SOURCE_CLASSPATH = "classpath:";
+    /** {@link #getConfigSource()} for the built-in default. */
+    public static final String SOURCE_DEFAULT = "default";
+
+    private String configSource = null;
+
     public void setup() {
         if ( maybeAlreadySet() ) {
             logLogging("already set");
@@ -84,15 +106,80 @@ public abstract class LoggingSetup {
 
         String[] files = getLoggingSetupFilenames();
 
-        for ( String fn : files ) {
-            if ( tryFileFor(fn) )
-                return;
-            if ( tryClassPathFor(fn) )
-                return;
-            if ( LoggingSystem.getPathBase() != null && tryClassPathFor(LoggingSystem.getPathBase() + fn) )
+        long start = System.nanoTime();
+        ConfigResolver resolver = new ConfigResolver(files, LoggingSystem.getPathBase(), this::getResource);
+        // Try each configuration found, in order, until one succeeds.
+        for ( int idx = resolve(resolver, 0) ; idx >= 0 ; idx = resolve(resolver, idx+1) ) {
+            ConfigResolver.Candidate candidate = resolver.get(idx);
+            logLogging("Resolved %s (%.2fms, %d lookups)", candidate, (System.nanoTime()-start)/1e6, resolver.lookups());
+            boolean b = candidate.isFile
+                    ? tryFileFor(candidate.name)
+                    : tryClassPathFor(resolver.url(idx), candidate.name);
+            if ( b ) {
+                configSource = candidate.toString();
+                afterConfiguration();
                 return;
+            }
+        }
+        logLogging("No configuration found (%.2fms, %d lookups)", (System.nanoTime()-start)/1e6, resolver.lookups());
+        defaultSetupPhase();
+        configSource = SOURCE_DEFAULT;
+        afterConfiguration();
+    }
+
+    /**
+     * Where the configuration came from in {@link #setup()}: "file:" or "classpath:"
+     * followed by the name, or "default". Returns null if setup has not been done or
+     * logging was already configured.
+     */
+    public String getConfigSource() {
+        return configSource;
+    }
+
+    /**
+     * Setup from a known configuration source, as returned by {@link #getConfigSource()},
+     * without looking for other configuration files.
+     * Returns false, having done nothing, if the source is not found.
+     */
+    public boolean setupFrom(String source) {
+        if ( maybeAlreadySet() ) {
+            logLogging("already set");
+            return true;
+        }
+        if ( source.equals(SOURCE_DEFAULT) ) {
+            defaultSetupPhase();
+        } else if ( source.startsWith(SOURCE_FILE) ) {
+            if ( ! tryFileFor(source.substring(SOURCE_FILE.length())) )
+                return false;
+        } else if ( source.startsWith(SOURCE_CLASSPATH) ) {
+            if ( ! tryClassPathFor(source.substring(SOURCE_CLASSPATH.length())) )
+                return false;
+        } else {
+            return false;
         }
+        configSource = source;
+        afterConfiguration();
+        return true;
+    }
+
+    private int resolve(ConfigResolver resolver, int start) {
+        JfrEvents.Phase phase = JfrEvents.setupPhase("resolve", getDisplayName());
+        int idx = resolver.next(start);
+        phase.finish(idx < 0 ? null : resolver.get(idx).toString());
+        return idx;
+    }
+
+    private void defaultSetupPhase() {
+        JfrEvents.Phase phase = JfrEvents.setupPhase("default", getDisplayName());
         defaultSetup();
+        phase.finish(SOURCE_DEFAULT);
+    }
+
+    /** {@link #initFromInputStream}, recorded as a setup phase. */
+    private void init(InputStream input, String name) throws IOException {
+        JfrEvents.Phase phase = JfrEvents.setupPhase("init", getDisplayName());
+        initFromInputStream(input, name);
+        phase.finish(name);
     }
 
     // Initialization code - each has a default of calling initFromInputStream
@@ -129,9 +216,10 @@ public abstract class LoggingSetup {
         if ( f.exists() ) {
             logLogging("found file:" + fn);
             try (InputStream input = new BufferedInputStream(new FileInputStream(f))) {
-                initFromInputStream(input, fn);
+                init(input, fn);
             }
             System.setProperty(getSystemProperty(), "file:" + fn);
+            ConfigWatcher.watchIfEnabled(this, f.toPath(), fn);
             return true;
         }
         return false;
@@ -145,19 +233,55 @@ public abstract class LoggingSetup {
         return false;
     }
 
+    /** {@link #tryClassPathFor(String)} for a resource already found. */
+    private boolean tryClassPathFor(URL url, String resourceName) {
+        logLogging("try classpath %s", resourceName);
+        try {
+            return initFromURL(url, resourceName);
+        } catch (Throwable th) {}
+        return false;
+    }
+
     protected boolean initFromURL(String resourceName) {
-        URL url = getResource(resourceName);
+        return initFromURL(getResource(resourceName), resourceName);
+    }
+
+    /** Initialize from the URL of a classpath resource; false if the URL is null. */
+    protected boolean initFromURL(URL url, String resourceName) {
         if ( url == null )
             return false;
         logLogging("found via classpath %s", url);
-        try {
-            initFromInputStream(url.openStream(), resourceName);
+        try (InputStream input = url.openStream()) {
+            init(input, resourceName);
         }
         catch (IOException e) { exception(e); return false; }
         System.setProperty(getSystemProperty(), url.toString());
+        if ( "file".equals(url.getProtocol()) ) {
+            try {
+                ConfigWatcher.watchIfEnabled(this, Paths.get(url.toURI()), resourceName);
+            } catch (URISyntaxException | IllegalArgumentException ex) {}
+        }
         return true;
     }
 
+    /** Re-apply a configuration file that has changed. */
+    /* package */ void reconfigure(Path file, String name) throws IOException {
+        JfrEvents.Phase phase = JfrEvents.setupPhase("reconfigure", getDisplayName());
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file))) {
+            reconfigureFromInputStream(input, name);
+        }
+        phase.finish(name);
+        afterConfiguration();
+    }
+
+    /**
+     * Apply a changed configuration to running logging.
+     * The default is to configure as at setup with {@link #initFromInputStream}.
+     */
+    protected void reconfigureFromInputStream(InputStream inputStream, String name) throws IOException {
+        initFromInputStream(inputStream, name);
+    }
+
     /** Open by classpath or return null */
     protected URL getResource(String resourceName) {
         URL url = this.getClass().getClassLoader().getResource(resourceName);
@@ -284,7 +408,79 @@ public abstract class LoggingSetup {
      *  Name is the file read, or null for the logging systems default built-in string format. */
     protected abstract void initFromInputStream(InputStream inputStream, String name) throws IOException;
 
-    protected abstract String getDisplayName();
+    public abstract String getDisplayName();
+
+    /** Set the level of a logger, by level name (see {@link LogLevel#parse}). */
+    public void setLevel(String logger, String level) {
+        LogLevel logLevel = LogLevel.parse(level);
+        applyLevel(logger, logLevel);
+        fireLevelChanged(logger, logLevel);
+    }
+
+    /**
+     * Set the levels of several loggers (logger name to level name).
+     */
+    public void setLevels(Map<String, String> levels) {
+        Map<String, LogLevel> x = new HashMap<>();
+        levels.forEach((logger, levelName) -> x.put(logger, LogLevel.parse(levelName)));
+        applyLevels(x);
+        x.forEach(LoggingSetup::fireLevelChanged);
+    }
+
+    /** Set the level of a logger in the backend. A null level clears the logger's level. */
+    protected abstract void applyLevel(String logger, LogLevel level);
+
+    /**
+     * Set the levels of several loggers in the backend.
+     * Backends override this to apply the changes together.
+     */
+    protected void applyLevels(Map<String, LogLevel> levels) {
+        levels.forEach(this::applyLevel);
+    }
 
-    public abstract void setLevel(String logger, String level);
+    /** The level in effect for a logger, or null if not known. */
+    public abstract LogLevel getEffectiveLevel(String logger);
+
+    /**
+     * Install what the backend needs to count events in {@link EventCounters}.
+     * Called after each configuration when counting is enabled. The default does nothing.
+     */
+    public void installCounting() {}
+
+    /**
+     * Install what the backend needs to apply {@link ByteQuotas} to its console output.
+     * Called after each configuration when the system property {@value ByteQuotas#PROPERTY}
+     * is set. The default does nothing.
+     */
+    public void installQuotas(String spec) {}
+
+    private void afterConfiguration() {
+        // Before counting, so only events within quota are counted.
+        String quotas = System.getProperty(ByteQuotas.PROPERTY);
+        if ( quotas != null )
+            installQuotas(quotas);
+        if ( EventCounters.isEnabled() )
+            installCounting();
+        fireReconfigured();
+    }
+
+    private static final List<LogLevelListener> listeners = new CopyOnWriteArrayList<>();
+
+    public static void addLevelListener(LogLevelListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeLevelListener(LogLevelListener listener) {
+        listeners.remove(listener);
+    }
+
+    private static void fireLevelChanged(String logger, LogLevel level) {
+        for ( LogLevelListener listener : listeners )
+            listener.levelChanged(logger, level);
+    }
+
+    private static void fireReconfigured() {
+        for ( LogLevelListener listener : listeners )
+            listener.reconfigured();
+    }
 }
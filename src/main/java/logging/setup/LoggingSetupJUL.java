@@ -18,19 +18,70 @@
 
 package logging.setup;
 
+import static logging.LoggingSystem.logAlways;
+import static logging.LoggingSystem.logLogging;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+import logging.LogLevel;
 import logging.LoggingDefaults;
+import logging.jul.ConsoleHandlerStream;
+import logging.jul.CountingFilter;
+import logging.jul.QuotaFilter;
 
 /** java.util.logging (JUL) setup */
 public class LoggingSetupJUL extends LoggingSetup {
 
     @Override
-    protected String getDisplayName() {
+    public String getDisplayName() {
         return "JUL";
     }
 
+    /**
+     * The same setup as {@link LoggingDefaults#defaultJUL}: a {@link ConsoleHandlerStream}
+     * on the root logger, level INFO. This is done directly rather than by
+     * reading the properties.
+     */
+    @Override
+    protected void defaultSetup() {
+        logLogging("Use default setup");
+        // Closes existing handlers.
+        java.util.logging.LogManager.getLogManager().reset();
+        java.util.logging.Logger root = java.util.logging.Logger.getLogger("");
+        root.setLevel(java.util.logging.Level.INFO);
+        root.addHandler(new ConsoleHandlerStream());
+    }
+
+    /** Count the events output by the root {@link ConsoleHandlerStream}s. */
+    @Override
+    public void installCounting() {
+        for ( java.util.logging.Handler h : java.util.logging.Logger.getLogger("").getHandlers() ) {
+            if ( h instanceof ConsoleHandlerStream && !(h.getFilter() instanceof CountingFilter) )
+                h.setFilter(new CountingFilter(h.getFilter()));
+        }
+    }
+
+    @Override
+    public void installQuotas(String spec) {
+        for ( java.util.logging.Handler h : java.util.logging.Logger.getLogger("").getHandlers() ) {
+            if ( h instanceof ConsoleHandlerStream && !hasQuotaFilter(h.getFilter()) )
+                h.setFilter(new QuotaFilter(h.getFilter(), spec));
+        }
+    }
+
+    // Quotas may be installed under counting.
+    private static boolean hasQuotaFilter(java.util.logging.Filter filter) {
+        if ( filter instanceof CountingFilter )
+            filter = ((CountingFilter)filter).getFilter();
+        return filter instanceof QuotaFilter;
+    }
+
     @Override
     protected void initFromInputStream(InputStream inputStream, String name) throws IOException {
         // A call of getLogManager().reset() closes handlers and streams.
@@ -38,6 +89,59 @@ public class LoggingSetupJUL extends LoggingSetup {
         java.util.logging.LogManager.getLogManager().readConfiguration(inputStream);
     }
 
+    @Override
+    protected void reconfigureFromInputStream(InputStream inputStream, String name) throws IOException {
+        // Update levels and other properties but keep the existing handlers,
+        // rather than closing them and creating new ones. Handlers read their
+        // properties when created so a root handler whose properties have changed
+        // is replaced by a new one of the same class.
+        java.util.logging.Logger root = java.util.logging.Logger.getLogger("");
+        Set<String> handlerClasses = new HashSet<>();
+        for ( java.util.logging.Handler h : root.getHandlers() )
+            handlerClasses.add(h.getClass().getName());
+        Set<String> changed = new HashSet<>();
+        java.util.logging.LogManager.getLogManager().updateConfiguration(inputStream, key -> {
+            if ( key.equals("handlers") || key.endsWith(".handlers") )
+                return (oldValue, newValue) -> oldValue;
+            String handlerClass = handlerClassOf(key, handlerClasses);
+            if ( handlerClass == null )
+                return (oldValue, newValue) -> newValue;
+            return (oldValue, newValue) -> {
+                if ( ! Objects.equals(oldValue, newValue) )
+                    changed.add(handlerClass);
+                return newValue;
+            };
+        });
+        for ( java.util.logging.Handler h : root.getHandlers() ) {
+            if ( changed.contains(h.getClass().getName()) )
+                replaceHandler(root, h);
+        }
+    }
+
+    /** The handler class that a property "{class}.{name}" is for, or null. */
+    private static String handlerClassOf(String key, Set<String> handlerClasses) {
+        int idx = key.lastIndexOf('.');
+        if ( idx <= 0 )
+            return null;
+        String className = key.substring(0, idx);
+        return handlerClasses.contains(className) ? className : null;
+    }
+
+    private static void replaceHandler(java.util.logging.Logger logger, java.util.logging.Handler handler) {
+        java.util.logging.Handler replacement;
+        try {
+            replacement = handler.getClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            logAlways("Can't recreate handler %s: %s", handler.getClass().getName(), ex.getMessage());
+            return;
+        }
+        logLogging("Recreate handler %s", handler.getClass().getName());
+        // Add before removing so no output is lost.
+        logger.addHandler(replacement);
+        logger.removeHandler(handler);
+        handler.close();
+    }
+
     @Override
     protected String[] getLoggingSetupFilenames() {
         return new String[] {"logging.properties"};
@@ -54,22 +158,39 @@ public class LoggingSetupJUL extends LoggingSetup {
     }
 
     @Override
-    public void setLevel(String logger, String levelName) {
-        java.util.logging.Level level = java.util.logging.Level.ALL;
-        if ( levelName == null )
-            level = null;
-        else if ( levelName.equalsIgnoreCase("info") )
-            level = java.util.logging.Level.INFO;
-        else if ( levelName.equalsIgnoreCase("trace") )
-            level = java.util.logging.Level.FINER;
-        else if ( levelName.equalsIgnoreCase("debug") )
-            level = java.util.logging.Level.FINE;
-        else if ( levelName.equalsIgnoreCase("warn") || levelName.equalsIgnoreCase("warning") )
-            level = java.util.logging.Level.WARNING;
-        else if ( levelName.equalsIgnoreCase("error") || levelName.equalsIgnoreCase("severe") )
-            level = java.util.logging.Level.SEVERE;
-        else if ( levelName.equalsIgnoreCase("OFF") )
-            level = java.util.logging.Level.OFF;
-        java.util.logging.Logger.getLogger(logger).setLevel(level);
-    }
-}
\ No newline at end of file
+    protected void applyLevel(String logger, LogLevel level) {
+        java.util.logging.Logger.getLogger(logger).setLevel(julLevel(level));
+    }
+
+    /** Convert all the levels, then apply them in one pass. */
+    @Override
+    protected void applyLevels(Map<String, LogLevel> levels) {
+        Map<String, java.util.logging.Level> x = new HashMap<>();
+        levels.forEach((logger, level) -> x.put(logger, julLevel(level)));
+        x.forEach((logger, level) -> java.util.logging.Logger.getLogger(logger).setLevel(level));
+    }
+
+    @Override
+    public LogLevel getEffectiveLevel(String logger) {
+        java.util.logging.Logger jul = java.util.logging.Logger.getLogger(logger);
+        while ( jul != null && jul.getLevel() == null )
+            jul = jul.getParent();
+        if ( jul == null )
+            return null;
+        return LogLevel.fromJUL(jul.getLevel());
+    }
+
+    private static java.util.logging.Level julLevel(LogLevel level) {
+        if ( level == null )
+            return null;
+        switch (level) {
+            case TRACE: return java.util.logging.Level.FINER;
+            case DEBUG: return java.util.logging.Level.FINE;
+            case INFO:  return java.util.logging.Level.INFO;
+            case WARN:  return java.util.logging.Level.WARNING;
+            case ERROR: return java.util.logging.Level.SEVERE;
+            case OFF:   return java.util.logging.Level.OFF;
+            default:    return java.util.logging.Level.ALL;
+        }
+    }
+}
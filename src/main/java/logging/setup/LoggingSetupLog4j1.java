@@ -31,7 +31,7 @@ public class LoggingSetupLog4j1 {}
 //public class LoggingSetupLog4j1 extends LoggingSetup {
 //
 //    @Override
-//    protected String getDisplayName() {
+//    public String getDisplayName() {
 //        return "Log4j1";
 //    }
 //
@@ -18,16 +18,21 @@
 
 package logging.setup;
 
+import static logging.LoggingSystem.logLogging;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 
+import logging.LogLevel;
 import logging.LoggingDefaults;
 
 /** Log4j2 setup */
 public class LoggingSetupLog4j2 extends LoggingSetup {
 
     @Override
-    protected String getDisplayName() {
+    public String getDisplayName() {
         return "Log4j2";
     }
 
@@ -47,9 +52,67 @@ public class LoggingSetupLog4j2 extends LoggingSetup {
             factory =  org.apache.logging.log4j.core.config.ConfigurationFactory.getInstance();
 
         org.apache.logging.log4j.core.config.Configuration configuration = factory.getConfiguration(null, source);
+        // Starts the new configuration, then switches loggers to it, then stops the old one.
+        // Logging continues throughout so this is also used to reload a changed configuration.
         org.apache.logging.log4j.core.config.Configurator.reconfigure(configuration);
     }
 
+    /**
+     * The same configuration as {@link LoggingDefaults#defaultLog4j2_xml},
+     * built directly rather than by parsing the XML.
+     */
+    @Override
+    protected void defaultSetup() {
+        logLogging("Use default setup");
+        org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder<org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration> builder =
+            org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory.newConfigurationBuilder();
+        builder.setStatusLevel(org.apache.logging.log4j.Level.INFO);
+        builder.add(builder.newAppender("STDOUT", "Console")
+                           .addAttribute("target", "SYSTEM_OUT")
+                           .add(builder.newLayout("PatternLayout")
+                                       .addAttribute("pattern", LoggingDefaults.defaultLog4j2_pattern)));
+        builder.add(builder.newRootLogger(org.apache.logging.log4j.Level.INFO)
+                           .add(builder.newAppenderRef("STDOUT")));
+        org.apache.logging.log4j.core.config.Configurator.reconfigure(builder.build());
+    }
+
+    /** Add the event counting filter to the root logger configuration. */
+    @Override
+    public void installCounting() {
+        org.apache.logging.log4j.core.LoggerContext context =
+            (org.apache.logging.log4j.core.LoggerContext)org.apache.logging.log4j.LogManager.getContext(false);
+        org.apache.logging.log4j.core.config.LoggerConfig root = context.getConfiguration().getRootLogger();
+        if ( hasFilter(root, CountingFilterLog4j2.class) )
+            return;
+        root.addFilter(new CountingFilterLog4j2());
+        context.updateLoggers();
+    }
+
+    /** Add the byte quota filter to the root logger configuration. */
+    @Override
+    public void installQuotas(String spec) {
+        org.apache.logging.log4j.core.LoggerContext context =
+            (org.apache.logging.log4j.core.LoggerContext)org.apache.logging.log4j.LogManager.getContext(false);
+        org.apache.logging.log4j.core.config.LoggerConfig root = context.getConfiguration().getRootLogger();
+        if ( hasFilter(root, QuotaFilterLog4j2.class) )
+            return;
+        root.addFilter(new QuotaFilterLog4j2(spec));
+        context.updateLoggers();
+    }
+
+    // A second filter makes the root filter a CompositeFilter.
+    private static boolean hasFilter(org.apache.logging.log4j.core.config.LoggerConfig config, Class<?> cls) {
+        org.apache.logging.log4j.core.Filter filter = config.getFilter();
+        if ( filter instanceof org.apache.logging.log4j.core.filter.CompositeFilter ) {
+            for ( org.apache.logging.log4j.core.Filter f : ((org.apache.logging.log4j.core.filter.CompositeFilter)filter).getFiltersArray() ) {
+                if ( cls.isInstance(f) )
+                    return true;
+            }
+            return false;
+        }
+        return cls.isInstance(filter);
+    }
+
     @Override
     protected String[] getLoggingSetupFilenames() {
         return new String[] { "log4j2.properties", "log4j2.yaml", "log4j2.yml", "log4j2.json", "log4j2.jsn", "log4j2.xml" };
@@ -67,26 +130,53 @@ public class LoggingSetupLog4j2 extends LoggingSetup {
 
     private boolean log4j2MsgLoggedOnce = false;
     @Override
-    public void setLevel(String logger, String levelName) {
-
-        org.apache.logging.log4j.Level level = org.apache.logging.log4j.Level.ALL;
-        if ( levelName == null )
-            level = null;
-        else if ( levelName.equalsIgnoreCase("info") )
-            level = org.apache.logging.log4j.Level.INFO;
-        else if ( levelName.equalsIgnoreCase("debug") )
-            level = org.apache.logging.log4j.Level.DEBUG;
-        else if ( levelName.equalsIgnoreCase("trace") )
-            level = org.apache.logging.log4j.Level.TRACE;
-        else if ( levelName.equalsIgnoreCase("warn") || levelName.equalsIgnoreCase("warning") )
-            level = org.apache.logging.log4j.Level.WARN;
-        else if ( levelName.equalsIgnoreCase("error") || levelName.equalsIgnoreCase("severe") )
-            level = org.apache.logging.log4j.Level.ERROR;
-        else if ( levelName.equalsIgnoreCase("OFF") )
-            level = org.apache.logging.log4j.Level.OFF;
-
-        org.apache.logging.log4j.core.config.Configurator.setLevel(logger, level);
+    protected void applyLevel(String logger, LogLevel level) {
+        org.apache.logging.log4j.core.config.Configurator.setLevel(logger, log4j2Level(level));
         // You can also set the root logger:
         //Configurator.setRootLevel(Level.DEBUG);
     }
-}
\ No newline at end of file
+
+    /** Set all the levels, then update the loggers once. */
+    @Override
+    protected void applyLevels(Map<String, LogLevel> levels) {
+        Map<String, org.apache.logging.log4j.Level> x = new HashMap<>();
+        levels.forEach((logger, level) -> x.put(logger, log4j2Level(level)));
+        org.apache.logging.log4j.core.config.Configurator.setLevel(x);
+    }
+
+    @Override
+    public LogLevel getEffectiveLevel(String logger) {
+        // Look in the configuration: LogManager.getLogger would create the logger.
+        org.apache.logging.log4j.core.LoggerContext context =
+            (org.apache.logging.log4j.core.LoggerContext)org.apache.logging.log4j.LogManager.getContext(false);
+        org.apache.logging.log4j.Level level = context.getConfiguration().getLoggerConfig(logger).getLevel();
+        return level == null ? null : logLevel(level);
+    }
+
+    /* package */ static LogLevel logLevel(org.apache.logging.log4j.Level level) {
+        switch (level.getStandardLevel()) {
+            case OFF:   return LogLevel.OFF;
+            case FATAL:
+            case ERROR: return LogLevel.ERROR;
+            case WARN:  return LogLevel.WARN;
+            case INFO:  return LogLevel.INFO;
+            case DEBUG: return LogLevel.DEBUG;
+            case TRACE: return LogLevel.TRACE;
+            default:    return LogLevel.ALL;
+        }
+    }
+
+    private static org.apache.logging.log4j.Level log4j2Level(LogLevel level) {
+        if ( level == null )
+            return null;
+        switch (level) {
+            case TRACE: return org.apache.logging.log4j.Level.TRACE;
+            case DEBUG: return org.apache.logging.log4j.Level.DEBUG;
+            case INFO:  return org.apache.logging.log4j.Level.INFO;
+            case WARN:  return org.apache.logging.log4j.Level.WARN;
+            case ERROR: return org.apache.logging.log4j.Level.ERROR;
+            case OFF:   return org.apache.logging.log4j.Level.OFF;
+            default:    return org.apache.logging.log4j.Level.ALL;
+        }
+    }
+}
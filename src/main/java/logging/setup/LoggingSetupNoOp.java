@@ -21,10 +21,12 @@ package logging.setup;
 import java.io.IOException;
 import java.io.InputStream;
 
+import logging.LogLevel;
+
 /** Setup for when we don't do anything */
 public class LoggingSetupNoOp extends LoggingSetup {
     @Override
-    protected String getDisplayName() {
+    public String getDisplayName() {
         return "NoOp";
     }
 
@@ -47,5 +49,10 @@ public class LoggingSetupNoOp extends LoggingSetup {
     protected void initFromInputStream(InputStream inputStream, String name) throws IOException {}
 
     @Override
-    public void setLevel(String logger, String level) {}
+    protected void applyLevel(String logger, LogLevel level) {}
+
+    @Override
+    public LogLevel getEffectiveLevel(String logger) {
+        return null;
+    }
 }
\ No newline at end of file
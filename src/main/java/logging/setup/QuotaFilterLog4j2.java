@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.setup;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+
+import logging.ByteQuotas;
+
+/**
+ * Log4j2 filter that applies {@link ByteQuotas}, denying events over quota.
+ * <p>
+ * The size of an event is the length of its formatted message in UTF-8. The summary of
+ * denied events is logged as a warning to the logger of the quota prefix, with a marker
+ * so it is not itself subject to the quota. The quotas are closed when the filter stops.
+ * Like {@link CountingFilterLog4j2}, it is added to the root logger configuration.
+ */
+final class QuotaFilterLog4j2 extends AbstractFilter {
+    private static final Marker SUMMARY = MarkerManager.getMarker("QUOTA_SUMMARY");
+
+    private final ByteQuotas quotas;
+
+    QuotaFilterLog4j2(String spec) {
+        this.quotas = new ByteQuotas(spec, QuotaFilterLog4j2::summary);
+    }
+
+    @Override
+    public Result filter(LogEvent event) {
+        if ( event.getMarker() == SUMMARY )
+            return Result.NEUTRAL;
+        String msg = event.getMessage().getFormattedMessage();
+        return quotas.allow(event.getLoggerName(), msg) ? Result.NEUTRAL : Result.DENY;
+    }
+
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        quotas.close();
+        return super.stop(timeout, timeUnit);
+    }
+
+    private static void summary(String prefix, String text) {
+        org.apache.logging.log4j.LogManager.getLogger(prefix).warn(SUMMARY, text);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging.jul;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * The encoders used by {@link StreamOutput} (Java 21 version).
+ * <p>
+ * Platform threads keep one encoder in a {@link ThreadLocal}, as in the Java 17 version.
+ * Virtual threads are many and short-lived, so an encoder per virtual thread would be
+ * allocated for each thread and rarely reused; they take an encoder from a small shared
+ * pool and return it after the write.
+ */
+final class Encoders {
+    private Encoders() {}
+
+    private static final int MAX_POOLED = 64;
+
+    private static final ThreadLocal<StreamOutput.Encoder> encoders = ThreadLocal.withInitial(StreamOutput.Encoder::new);
+    // ArrayBlockingQueue uses a ReentrantLock so taking from it does not pin.
+    private static final ArrayBlockingQueue<StreamOutput.Encoder> pool = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    static StreamOutput.Encoder acquire() {
+        if ( ! Thread.currentThread().isVirtual() )
+            return encoders.get();
+        StreamOutput.Encoder encoder = pool.poll();
+        return encoder != null ? encoder : new StreamOutput.Encoder();
+    }
+
+    static void release(StreamOutput.Encoder encoder) {
+        encoder.release();
+        if ( Thread.currentThread().isVirtual() )
+            pool.offer(encoder);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import logging.jul.TextFormatter;
+
+/**
+ * Bytes allocated per call on logging paths, measured with
+ * {@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()}.
+ * Paths that output nothing must not allocate.
+ */
+public class TestAllocationBudget {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+    private static final int ROUNDS = 3;
+
+    // Bytes per call for TextFormatter.format of a short record with one parameter.
+    // String.format of the default pattern, which has a date, is most of it.
+    private static final long FORMAT_BUDGET = 3_000;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeClass public static void beforeClass() {
+        java.lang.management.ThreadMXBean x = ManagementFactory.getThreadMXBean();
+        assumeTrue(x instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean)x;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        LogCtl.setLogging();
+    }
+
+    /**
+     * Bytes allocated per call of the action, after a warmup: the least of a few rounds,
+     * in whole bytes. Any allocation on every call is at least an object header, so
+     * one-off allocations during a round (e.g. by the JIT compiler) round down to zero.
+     */
+    private static long allocatedPerCall(Runnable action) {
+        for ( int i = 0 ; i < WARMUP ; i++ )
+            action.run();
+        long least = Long.MAX_VALUE;
+        for ( int round = 0 ; round < ROUNDS ; round++ ) {
+            long start = threads.getCurrentThreadAllocatedBytes();
+            for ( int i = 0 ; i < ITERATIONS ; i++ )
+                action.run();
+            long allocated = threads.getCurrentThreadAllocatedBytes() - start;
+            least = Math.min(least, allocated / ITERATIONS);
+        }
+        return least;
+    }
+
+    private static void assertBudget(String label, long perCall, long budget) {
+        assertTrue(String.format("%s: %d bytes per call, budget %d", label, perCall, budget), perCall <= budget);
+    }
+
+    @Test public void logFmtDisabled() {
+        Logger log = LoggerFactory.getLogger("logging.test.Alloc");
+        assertFalse(log.isDebugEnabled());
+        // Preallocated so that the varargs array and boxing are not counted.
+        Object[] args = { "value", Integer.valueOf(1) };
+        long x = allocatedPerCall(() -> LogFmt.debug(log, "Message %s %d", args));
+        assertBudget("LogFmt.debug (disabled)", x, 0);
+    }
+
+    @Test public void logDebugClassDisabled() {
+        assertFalse(LoggerFactory.getLogger(TestAllocationBudget.class).isDebugEnabled());
+        long x = allocatedPerCall(() -> Log.debug(TestAllocationBudget.class, "Message"));
+        assertBudget("Log.debug(Class) (disabled)", x, 0);
+    }
+
+    @Test public void warnOnceRepeated() {
+        Object key = new Object();
+        Log.warnOnce(TestAllocationBudget.class, "Warning (once, from TestAllocationBudget)", key);
+        long x = allocatedPerCall(() -> Log.warnOnce(TestAllocationBudget.class, "Warning", key));
+        assertBudget("Log.warnOnce (already warned)", x, 0);
+    }
+
+    @Test public void textFormatter() {
+        TextFormatter formatter = new TextFormatter();
+        LogRecord record = new LogRecord(Level.INFO, "Message {0}");
+        record.setLoggerName("logging.test.Alloc");
+        record.setParameters(new Object[] { "value" });
+        long x = allocatedPerCall(() -> formatter.format(record));
+        assertBudget("TextFormatter.format", x, FORMAT_BUDGET);
+    }
+}
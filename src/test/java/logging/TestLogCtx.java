@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.helpers.BasicMDCAdapter;
+import org.slf4j.spi.MDCAdapter;
+
+/**
+ * {@link LogCtx} carrying the MDC to tasks and restoring the pool thread's MDC.
+ * The slf4j provider used in the tests may have no MDC so the tests use slf4j's
+ * {@link BasicMDCAdapter}, through {@code LogCtx.testAdapter}.
+ */
+public class TestLogCtx {
+    private static final MDCAdapter mdc = new BasicMDCAdapter();
+    private ExecutorService pool;
+
+    @BeforeClass public static void beforeClass() {
+        LogCtx.testAdapter = mdc;
+    }
+
+    @AfterClass public static void afterClass() {
+        LogCtx.testAdapter = null;
+    }
+
+    @Before public void before() {
+        mdc.clear();
+        // Created with no MDC to inherit.
+        pool = Executors.newSingleThreadExecutor();
+    }
+
+    @After public void after() throws Exception {
+        mdc.clear();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private Map<String, String> poolMDC() throws Exception {
+        return pool.submit(() -> mdc.getCopyOfContextMap()).get();
+    }
+
+    @Test public void wrapRunnable() {
+        mdc.put("request", "1");
+        String[] seen = new String[1];
+        Runnable task = LogCtx.wrapRunnable(() -> seen[0] = mdc.get("request"));
+        mdc.clear();
+        task.run();
+        assertEquals("1", seen[0]);
+        assertNull(mdc.get("request"));
+    }
+
+    @Test public void restorePoolThreadMDC() throws Exception {
+        pool.submit(() -> mdc.put("pool", "p")).get();
+        ExecutorService executor = LogCtx.wrap(pool);
+        mdc.put("request", "2");
+        Future<String> f = executor.submit(() -> mdc.get("request") + "/" + mdc.get("pool"));
+        assertEquals("2/null", f.get());
+        assertEquals(Map.of("pool", "p"), poolMDC());
+    }
+
+    @Test public void clearTaskMDC() throws Exception {
+        ExecutorService executor = LogCtx.wrap(pool);
+        executor.submit(() -> mdc.put("task", "t")).get();
+        Map<String, String> x = poolMDC();
+        assertEquals(Map.of(), x == null ? Map.of() : x);
+    }
+
+    @Test public void invokeAll() throws Exception {
+        pool.submit(() -> mdc.put("pool", "p")).get();
+        ExecutorService executor = LogCtx.wrap(pool);
+        mdc.put("request", "3");
+        Callable<String> task = () -> mdc.get("request") + "/" + mdc.get("pool");
+        List<Future<String>> results = executor.invokeAll(List.of(task, task, task));
+        for ( Future<String> f : results )
+            assertEquals("3/null", f.get());
+        assertEquals(Map.of("pool", "p"), poolMDC());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import logging.jul.ConsoleHandlerStream;
+
+/**
+ * Many virtual threads logging through {@link ConsoleHandlerStream} at once.
+ * Needs Java 21; skipped on earlier versions. Virtual threads are created by reflection
+ * as the tests are compiled for Java 17.
+ * <p>
+ * Some writes park, as a slow console would, and JFR records any
+ * {@code jdk.VirtualThreadPinned} events: a virtual thread parking while holding a
+ * monitor in the handler would pin its carrier.
+ */
+public class TestVirtualThreadLogging {
+    private static final int THREADS = 100_000;
+
+    // One write in this many parks.
+    private static final int SLOW_EVERY = 1000;
+
+    /** Counts the lines written; some writes park. */
+    private static class LineCounter extends OutputStream {
+        final AtomicLong lines = new AtomicLong();
+        final AtomicLong writes = new AtomicLong();
+
+        @Override public void write(int b) {
+            if ( b == '\n' )
+                lines.incrementAndGet();
+        }
+
+        @Override public void write(byte[] b, int off, int len) {
+            if ( writes.incrementAndGet() % SLOW_EVERY == 0 )
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            for ( int i = off ; i < off+len ; i++ )
+                write(b[i]);
+        }
+    }
+
+    @Test public void virtualThreads() throws Exception {
+        assumeTrue("Needs Java 21", Runtime.version().feature() >= 21);
+        LineCounter output = new LineCounter();
+        ConsoleHandlerStream handler = new ConsoleHandlerStream(output);
+        Logger logger = Logger.getLogger("logging.test.VirtualThreads");
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.INFO);
+        logger.addHandler(handler);
+        Path jfrFile = Files.createTempFile("pinning", ".jfr");
+        try ( Recording recording = new Recording() ) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            ExecutorService executor = (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            for ( int i = 0 ; i < THREADS ; i++ ) {
+                int n = i;
+                executor.execute(() -> logger.log(Level.INFO, "Virtual thread {0}", n));
+            }
+            executor.shutdown();
+            assertTrue("Timeout", executor.awaitTermination(2, TimeUnit.MINUTES));
+            recording.stop();
+            recording.dump(jfrFile);
+            assertEquals(THREADS, output.lines.get());
+            List<RecordedEvent> pinned = RecordingFile.readAllEvents(jfrFile).stream()
+                .filter(e -> e.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                .collect(Collectors.toList());
+            assertTrue("Pinned: "+(pinned.isEmpty() ? "" : pinned.get(0)), pinned.isEmpty());
+        } finally {
+            logger.removeHandler(handler);
+            Files.deleteIfExists(jfrFile);
+        }
+    }
+}